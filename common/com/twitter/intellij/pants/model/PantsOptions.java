@@ -51,6 +51,10 @@ public class PantsOptions {
     return has(PantsConstants.PANTS_OPTION_ASYNC_CLEAN_ALL);
   }
 
+  public boolean supportsPantsd() {
+    return has(PantsConstants.PANTS_OPTION_ENABLE_PANTSD);
+  }
+
   public boolean usesStrictJvmVersionForJUnit() {
     return get(PantsConstants.PANTS_OPTION_TEST_JUNIT_STRICT_JVM_VERSION)
       .map(value -> value.equals(PantsConstants.PANTS_SERIALIZED_VALUE_TRUE))
@@ -38,6 +38,8 @@ public class PantsConstants {
   public static final String PANTS_OPTION_LINKED_PROJECT_PATH = "pants.linked.project.path";
   public static final String PANTS_OPTION_TEST_JUNIT_STRICT_JVM_VERSION = "test.junit.strict_jvm_version";
   public static final String PANTS_OPTION_ASYNC_CLEAN_ALL = "clean-all.async";
+  public static final String PANTS_OPTION_ENABLE_PANTSD = "enable_pantsd";
+  public static final String PANTS_OPTION_SUBPROCESSDIR = "pants_subprocessdir";
 
 
   public static final String PANTS_AVAILABLE_TARGETS_KEY = "available_targets";
@@ -48,6 +50,7 @@ public class PantsConstants {
   public static final String PANTS_CLI_OPTION_JVM_DISTRIBUTIONS_PATHS = "--jvm-distributions-paths";
   public static final String PANTS_CLI_OPTION_NO_TEST_JUNIT_TIMEOUTS = "--no-test-junit-timeouts";
   public static final String PANTS_CLI_OPTION_ASYNC_CLEAN_ALL = "--clean-all-async";
+  public static final String PANTS_CLI_OPTION_ENABLE_PANTSD = "--enable-pantsd";
   public static final String PANTS_CLI_OPTION_PYTEST = "--test-pytest-options";
   public static final String PANTS_CLI_OPTION_JUNIT_TEST = "--test-junit-test";
 
@@ -67,6 +70,7 @@ public class PantsConstants {
   public static final String PANTS_TASK_COMPILE = "compile";
   public static final String PANTS_TASK_EXPORT_CLASSPATH = "export-classpath";
   public static final String PANTS_TASK_LINT = "lint";
+  public static final String PANTS_TASK_KILL_PANTSD = "kill-pantsd";
 
   // scalatest: org.jetbrains.plugins.scala.testingSupport.test.scalatest
   // spec2: org.jetbrains.plugins.scala.testingSupport.test.spec2
@@ -757,15 +757,28 @@ public class PantsUtil {
 
   @NotNull
   public static <T> List<T> findChildren(@NotNull DataNode<?> dataNode, @NotNull Key<T> key) {
-    return ContainerUtil.mapNotNull(
-      ExternalSystemApiUtil.findAll(dataNode, key),
-      new Function<DataNode<T>, T>() {
-        @Override
-        public T fun(DataNode<T> node) {
-          return node.getData();
+    synchronized (dataNode) {
+      return ContainerUtil.mapNotNull(
+        ExternalSystemApiUtil.findAll(dataNode, key),
+        new Function<DataNode<T>, T>() {
+          @Override
+          public T fun(DataNode<T> node) {
+            return node.getData();
+          }
         }
-      }
-    );
+      );
+    }
+  }
+
+  /**
+   * Same as {@link DataNode#createChild} but safe to call while other threads add children to the same node
+   * or look them up with {@link #findChildren}.
+   */
+  @NotNull
+  public static <T> DataNode<T> createChild(@NotNull DataNode<?> dataNode, @NotNull Key<T> key, @NotNull T data) {
+    synchronized (dataNode) {
+      return dataNode.createChild(key, data);
+    }
   }
 
   /**
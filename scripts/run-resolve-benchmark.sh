@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+
+# Runs the JMH benchmarks of the project resolve pipeline against recorded `pants export` outputs.
+# Usage:
+# ./scripts/run-resolve-benchmark.sh --fixtures <dir with *.json exports> [--output results.json] [--include <regexp>]
+
+source scripts/prepare-ci-environment.sh
+
+args=""
+while [ $# -ge 1 ]; do
+        case "$1" in
+                --fixtures)
+                        args="$args --run-jvm-args=-fixtures --run-jvm-args=$2"
+                        shift
+                        ;;
+                --output)
+                        args="$args --run-jvm-args=-output --run-jvm-args=$2"
+                        shift
+                        ;;
+                --include)
+                        args="$args --run-jvm-args=-include --run-jvm-args=$2"
+                        shift
+                        ;;
+        esac
+        shift
+done
+
+cmd=$(append_intellij_jvm_options run.jvm)
+cmd="$cmd --jvm-options=-Didea.is.unit.test=true"
+cmd="$cmd testFramework/com/twitter/intellij/pants/testFramework/performance/resolve $args"
+
+rm -rf $IDEA_TEST_HOME
+mkdir -p $IDEA_TEST_HOME
+echo "Executing:"
+echo "pants $cmd"
+./pants $cmd
@@ -6,7 +6,6 @@ package com.twitter.intellij.pants.components.impl;
 import com.intellij.openapi.externalSystem.util.ExternalSystemConstants;
 import com.intellij.openapi.util.registry.Registry;
 import com.twitter.intellij.pants.components.PantsInitComponent;
-import com.twitter.intellij.pants.metrics.PantsMetrics;
 import com.twitter.intellij.pants.util.PantsConstants;
 import com.twitter.intellij.pants.util.PantsUtil;
 import org.jetbrains.annotations.NotNull;
@@ -30,6 +29,5 @@ public class PantsInitComponentImpl implements PantsInitComponent {
   @Override
   public void dispose() {
     PantsUtil.scheduledThreadPool.shutdown();
-    PantsMetrics.globalCleanup();
   }
 }
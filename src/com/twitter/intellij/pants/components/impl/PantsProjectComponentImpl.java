@@ -31,7 +31,7 @@ import com.twitter.intellij.pants.PantsBundle;
 import com.twitter.intellij.pants.execution.PantsMakeBeforeRun;
 import com.twitter.intellij.pants.file.FileChangeTracker;
 import com.twitter.intellij.pants.metrics.PantsExternalMetricsListenerManager;
-import com.twitter.intellij.pants.metrics.PantsMetrics;
+import com.twitter.intellij.pants.metrics.PantsProjectMetrics;
 import com.twitter.intellij.pants.model.PantsOptions;
 import com.twitter.intellij.pants.service.project.PantsResolver;
 import com.twitter.intellij.pants.settings.PantsProjectSettings;
@@ -50,13 +50,12 @@ import java.util.Optional;
 public class PantsProjectComponentImpl implements ProjectManagerListener {
   @Override
   public void projectClosed(@NotNull Project project) {
-    PantsMetrics.report();
+    PantsProjectMetrics.getInstance(project).report();
     FileChangeTracker.unregisterProject(project);
   }
 
   @Override
   public void projectOpened(@NotNull Project project) {
-    PantsMetrics.initialize();
     if (PantsUtil.isPantsProject(project)) {
       // projectOpened() is called on the dispatch thread, while
       // addPantsProjectIgnoreDirs() calls an external process,
@@ -0,0 +1,190 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.execution;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.twitter.intellij.pants.file.FileChangeTracker;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Merges the compiles asked for at the same time in a project, e.g. by several run configurations launched together,
+ * into one Pants invocation at a time.
+ * <p>
+ * While a compile runs, the requests for targets it already covers, with no file changed since it started, share its result.
+ * The other ones are merged into a single pending compile of all their targets, which starts once the running one is done,
+ * on the thread of one of them, and whose result all of them get.
+ * Waiting requests can be cancelled through their progress indicator.
+ */
+public class PantsCompileQueue {
+  private static final long CANCELLATION_CHECK_INTERVAL_MS = 100;
+
+  private final Project myProject;
+  private final Object myLock = new Object();
+  // guarded by myLock
+  private Batch myRunning;
+  private Batch myPending;
+
+  /**
+   * The compile of the targets of one or more requests.
+   */
+  private static final class Batch {
+    private final Set<String> myTargetAddresses = new HashSet<>();
+    private boolean myUseCleanAll;
+    // the FileChangeTracker modification count when the compile started
+    private long myModificationCount;
+    private final CompletableFuture<PantsExecuteTaskResult> myResult = new CompletableFuture<>();
+
+    private void add(@NotNull Set<String> targetAddresses, boolean useCleanAll) {
+      myTargetAddresses.addAll(targetAddresses);
+      myUseCleanAll |= useCleanAll;
+    }
+  }
+
+  public interface Compiler {
+    @NotNull
+    PantsExecuteTaskResult compile(@NotNull Set<String> targetAddresses, boolean useCleanAll);
+  }
+
+  public PantsCompileQueue(@NotNull Project project) {
+    myProject = project;
+  }
+
+  @NotNull
+  public static PantsCompileQueue getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, PantsCompileQueue.class);
+  }
+
+  /**
+   * Compiles the targets, together with the ones of the concurrent requests.
+   * On the EDT the compile runs right away, since waiting there for another one could block it.
+   *
+   * @param compiler: runs a compile, if this request has to start one.
+   * @return the result of the compile covering the targets.
+   */
+  @NotNull
+  public PantsExecuteTaskResult compile(@NotNull Set<String> targetAddresses, boolean useCleanAll, @NotNull Compiler compiler) {
+    if (ApplicationManager.getApplication().isDispatchThread()) {
+      return compiler.compile(targetAddresses, useCleanAll);
+    }
+
+    final Batch batch;
+    synchronized (myLock) {
+      if (myRunning != null
+          && !useCleanAll
+          && myRunning.myModificationCount == FileChangeTracker.getModificationCount(myProject)
+          && myRunning.myTargetAddresses.containsAll(targetAddresses)) {
+        batch = myRunning;
+      }
+      else {
+        if (myPending == null) {
+          myPending = new Batch();
+        }
+        batch = myPending;
+        batch.add(targetAddresses, useCleanAll);
+      }
+    }
+    try {
+      return await(batch, compiler);
+    }
+    catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException)e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error)e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  /**
+   * Waits for the result of the batch, checking for cancellation meanwhile.
+   * A pending batch is compiled by whichever of its requests finds nothing running anymore,
+   * so cancelling the request that created it doesn't hold up the others.
+   */
+  @NotNull
+  private PantsExecuteTaskResult await(@NotNull Batch batch, @NotNull Compiler compiler) throws ExecutionException {
+    while (true) {
+      final CompletableFuture<PantsExecuteTaskResult> awaited;
+      Set<String> targetAddresses = null;
+      boolean useCleanAll = false;
+      synchronized (myLock) {
+        if (myPending != batch) {
+          awaited = batch.myResult;
+        }
+        else if (myRunning != null) {
+          awaited = myRunning.myResult;
+        }
+        else {
+          // from here on the batch only takes requests it covers, so its targets are final
+          myPending = null;
+          myRunning = batch;
+          batch.myModificationCount = FileChangeTracker.getModificationCount(myProject);
+          targetAddresses = Collections.unmodifiableSet(new HashSet<>(batch.myTargetAddresses));
+          useCleanAll = batch.myUseCleanAll;
+          awaited = null;
+        }
+      }
+      if (awaited == null) {
+        run(batch, targetAddresses, useCleanAll, compiler);
+        continue;
+      }
+      try {
+        if (awaited == batch.myResult) {
+          return awaited.get(CANCELLATION_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+        awaited.get(CANCELLATION_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+      }
+      catch (TimeoutException e) {
+        ProgressManager.checkCanceled();
+      }
+      catch (ExecutionException e) {
+        if (awaited == batch.myResult) {
+          throw e;
+        }
+        // the requests of the running batch get the failure, this one only waits for it to finish
+      }
+      catch (InterruptedException e) {
+        throw new ProcessCanceledException(e);
+      }
+    }
+  }
+
+  private void run(
+    @NotNull Batch batch,
+    @NotNull Set<String> targetAddresses,
+    boolean useCleanAll,
+    @NotNull Compiler compiler
+  ) {
+    PantsExecuteTaskResult result = null;
+    Throwable failure = null;
+    try {
+      result = compiler.compile(targetAddresses, useCleanAll);
+    }
+    catch (Throwable e) {
+      failure = e;
+    }
+    synchronized (myLock) {
+      myRunning = null;
+    }
+    if (failure != null) {
+      batch.myResult.completeExceptionally(failure);
+    }
+    else {
+      batch.myResult.complete(result);
+    }
+  }
+}
@@ -0,0 +1,152 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.execution;
+
+import com.intellij.execution.ExecutionException;
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.execution.process.ProcessOutput;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.io.FileUtil;
+import com.twitter.intellij.pants.model.PantsOptions;
+import com.twitter.intellij.pants.util.PantsConstants;
+import com.twitter.intellij.pants.util.PantsUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * The pantsd daemon of one build root. Pants runs it itself once `--enable-pantsd` is given, and keeps
+ * the interpreter and the parsed build graph warm, so that a compile before a run doesn't pay the Pants
+ * startup every time.
+ * <p>
+ * Runs through the same daemon are queued in the order they come, since they would block each other
+ * on the workdir lock anyway. Before each run the daemon is checked through the pid it wrote, and
+ * it is killed, to be started again by the next run, if that process is gone.
+ */
+public class PantsDaemonSession {
+  private static final Logger LOG = Logger.getInstance(PantsDaemonSession.class);
+
+  // pants executable path to the session of its build root
+  private static final Map<String, PantsDaemonSession> ourSessions = new ConcurrentHashMap<>();
+
+  private final String myPantsExecutable;
+  private final File myPidFile;
+  // fair, so that queued runs go in the order they were asked for
+  private final ReentrantLock myLock = new ReentrantLock(true);
+
+  private PantsDaemonSession(@NotNull String pantsExecutable, @NotNull PantsOptions pantsOptions) {
+    myPantsExecutable = pantsExecutable;
+    final File buildRoot = new File(pantsExecutable).getParentFile();
+    final File subprocessDir = pantsOptions.get(PantsConstants.PANTS_OPTION_SUBPROCESSDIR)
+      .map(File::new)
+      .map(dir -> dir.isAbsolute() ? dir : new File(buildRoot, dir.getPath()))
+      .orElse(new File(buildRoot, ".pids"));
+    myPidFile = new File(subprocessDir, "pantsd/pid");
+  }
+
+  @NotNull
+  public static PantsDaemonSession getInstance(@NotNull String pantsExecutable, @NotNull PantsOptions pantsOptions) {
+    return ourSessions.computeIfAbsent(pantsExecutable, executable -> new PantsDaemonSession(executable, pantsOptions));
+  }
+
+  /**
+   * A Pants invocation that can be run again if the daemon died during it.
+   */
+  public interface PantsRun {
+    /**
+     * @return the exit code of the Pants process.
+     */
+    int run() throws ExecutionException;
+  }
+
+  /**
+   * Runs Pants through the daemon once every earlier run of this build root has finished.
+   * If the run fails because the daemon died during it, the daemon is restarted and the run retried once.
+   *
+   * @param run:      the invocation, with {@link PantsConstants#PANTS_CLI_OPTION_ENABLE_PANTSD} on its command line.
+   * @param messages: receives what the user should know about the daemon, e.g. that the run is queued.
+   * @return the exit code of the last attempt.
+   */
+  public int run(@NotNull PantsRun run, @NotNull Consumer<String> messages) throws ExecutionException {
+    if (!myLock.tryLock()) {
+      messages.accept("Waiting for the Pants run in progress in this build root...\n");
+      myLock.lock();
+    }
+    try {
+      if (!isHealthy()) {
+        messages.accept("pantsd is not running any more, restarting it.\n");
+        restart();
+      }
+      final int exitCode = run.run();
+      if (exitCode == 0 || isHealthy()) {
+        return exitCode;
+      }
+      messages.accept("pantsd stopped during the run, restarting it and running again.\n");
+      restart();
+      return run.run();
+    }
+    finally {
+      myLock.unlock();
+    }
+  }
+
+  /**
+   * @return false iff the daemon left a pid behind whose process is gone.
+   * No pid means it hasn't been started yet, which the next run will do.
+   */
+  public boolean isHealthy() {
+    if (!myPidFile.isFile()) {
+      return true;
+    }
+    // pids are ints, a larger number could wrap around to a negative one in kill
+    final int pid;
+    try {
+      pid = Integer.parseInt(FileUtil.loadFile(myPidFile).trim());
+    }
+    catch (IOException | NumberFormatException e) {
+      LOG.warn("Failed to read the pantsd pid from " + myPidFile, e);
+      return false;
+    }
+    // 0 and negative pids would make kill signal process groups
+    return pid > 0 && isAlive(pid);
+  }
+
+  /**
+   * Pants, and so pantsd, only runs on Unix, where signal 0 checks a process exists without touching it.
+   */
+  private static boolean isAlive(int pid) {
+    final GeneralCommandLine commandLine = new GeneralCommandLine("kill", "-0", String.valueOf(pid));
+    try {
+      return PantsUtil.getCmdOutput(commandLine, null).getExitCode() == 0;
+    }
+    catch (ExecutionException e) {
+      // don't restart a daemon that may well be fine
+      LOG.warn("Failed to check whether pantsd is running", e);
+      return true;
+    }
+  }
+
+  /**
+   * Stops the daemon and clears what it left behind. The next run with pantsd enabled starts a new one.
+   */
+  public void restart() {
+    final GeneralCommandLine commandLine = PantsUtil.defaultCommandLine(myPantsExecutable);
+    commandLine.addParameters(PantsConstants.PANTS_CLI_OPTION_NO_COLORS, PantsConstants.PANTS_TASK_KILL_PANTSD);
+    try {
+      final ProcessOutput output = PantsUtil.getCmdOutput(commandLine, null);
+      if (output.getExitCode() != 0) {
+        LOG.warn("Failed to kill pantsd: " + output.getStderr());
+      }
+    }
+    catch (ExecutionException e) {
+      LOG.warn("Failed to kill pantsd", e);
+    }
+    FileUtil.delete(myPidFile);
+  }
+}
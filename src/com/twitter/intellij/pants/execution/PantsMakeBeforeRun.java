@@ -19,6 +19,7 @@ import com.intellij.execution.process.CapturingAnsiEscapesAwareProcessHandler;
 import com.intellij.execution.process.CapturingProcessHandler;
 import com.intellij.execution.process.ProcessAdapter;
 import com.intellij.execution.process.ProcessEvent;
+import com.intellij.execution.process.ProcessOutputTypes;
 import com.intellij.execution.runners.ExecutionEnvironment;
 import com.intellij.execution.ui.ConsoleView;
 import com.intellij.execution.ui.ConsoleViewContentType;
@@ -42,7 +43,9 @@ import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.wm.ex.ToolWindowManagerEx;
 import com.twitter.intellij.pants.PantsBundle;
 import com.twitter.intellij.pants.file.FileChangeTracker;
+import com.twitter.intellij.pants.metrics.DurationHistogram;
 import com.twitter.intellij.pants.metrics.PantsExternalMetricsListenerManager;
+import com.twitter.intellij.pants.metrics.PantsProjectMetrics;
 import com.twitter.intellij.pants.model.IJRC;
 import com.twitter.intellij.pants.model.PantsOptions;
 import com.twitter.intellij.pants.service.project.FastpassRecommendationNotificationService;
@@ -65,6 +68,8 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
@@ -243,6 +248,13 @@ public class PantsMakeBeforeRun extends ExternalSystemBeforeRunTaskProvider {
     }
 
     PantsSettings settings = PantsSettings.getInstance(currentProject);
+    final Optional<PantsDaemonSession> daemon = settings.isUsePantsd() && pantsOptions.supportsPantsd()
+                                                ? Optional.of(PantsDaemonSession.getInstance(pantsExecutable.get().getPath(), pantsOptions))
+                                                : Optional.empty();
+    if (daemon.isPresent()) {
+      commandLine.addParameter(PantsConstants.PANTS_CLI_OPTION_ENABLE_PANTSD);
+    }
+
     try {
       String javaHome;
       if (settings.isUseIdeaProjectJdk()) {
@@ -269,30 +281,25 @@ public class PantsMakeBeforeRun extends ExternalSystemBeforeRunTaskProvider {
     commandLine.addParameters(Lists.newArrayList(targetAddresses));
 
     /* Invoke the Pants subprocess. */
-    final Process process;
+    final List<String> output = new ArrayList<>();
+    final int exitCode;
     try {
-      process = commandLine.createProcess();
+      if (daemon.isPresent()) {
+        exitCode = daemon.get().run(
+          () -> runPantsProcess(currentProject, commandLine, true, output),
+          message -> showPantsMakeTaskMessage(message, ConsoleViewContentType.SYSTEM_OUTPUT, currentProject)
+        );
+      }
+      else {
+        exitCode = runPantsProcess(currentProject, commandLine, false, output);
+      }
     }
     catch (ExecutionException e) {
       showPantsMakeTaskMessage(e.getMessage() != null ? e.getMessage() : e.toString(), ConsoleViewContentType.ERROR_OUTPUT, currentProject);
       return PantsExecuteTaskResult.emptyFailure();
     }
 
-    final CapturingProcessHandler processHandler = new CapturingAnsiEscapesAwareProcessHandler(process, commandLine.getCommandLineString());
-    final List<String> output = new ArrayList<>();
-    processHandler.addProcessListener(new ProcessAdapter() {
-      @Override
-      public void onTextAvailable(@NotNull ProcessEvent event, @NotNull Key outputType) {
-        super.onTextAvailable(event, outputType);
-        showPantsMakeTaskMessage(event.getText(), ConsoleViewContentType.NORMAL_OUTPUT, currentProject);
-        output.add(event.getText());
-      }
-    });
-    runningPantsProcesses.put(currentProject, process);
-    processHandler.runProcess();
-    runningPantsProcesses.remove(currentProject, process);
-
-    final boolean success = process.exitValue() == 0;
+    final boolean success = exitCode == 0;
     if (tasks.contains(PantsConstants.PANTS_TASK_COMPILE)) {
       if (success) {
         // manifest jar is always created if the run succeeds
@@ -316,6 +323,68 @@ public class PantsMakeBeforeRun extends ExternalSystemBeforeRunTaskProvider {
     return new PantsExecuteTaskResult(success, Optional.of(finalOutString));
   }
 
+  /**
+   * Runs the Pants process and records how long it took to start, i.e. until its first output.
+   * With the pantsd setting on, the startup times seen so far are also shown.
+   *
+   * @param output: receives the output of the process, replacing the one of any previous attempt.
+   * @return the exit code of the process.
+   */
+  private int runPantsProcess(
+    @NotNull Project currentProject,
+    @NotNull GeneralCommandLine commandLine,
+    boolean usesPantsd,
+    @NotNull List<String> output
+  ) throws ExecutionException {
+    output.clear();
+    final long start = System.nanoTime();
+    final Process process = commandLine.createProcess();
+    final AtomicBoolean started = new AtomicBoolean();
+    final PantsProjectMetrics metrics = PantsProjectMetrics.getInstance(currentProject);
+    final String startupMetric = usesPantsd ? PantsProjectMetrics.PANTS_STARTUP_PANTSD : PantsProjectMetrics.PANTS_STARTUP;
+
+    final CapturingProcessHandler processHandler = new CapturingAnsiEscapesAwareProcessHandler(process, commandLine.getCommandLineString());
+    processHandler.addProcessListener(new ProcessAdapter() {
+      @Override
+      public void onTextAvailable(@NotNull ProcessEvent event, @NotNull Key outputType) {
+        super.onTextAvailable(event, outputType);
+        if (outputType != ProcessOutputTypes.SYSTEM && started.compareAndSet(false, true)) {
+          metrics.recordDuration(startupMetric, System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        showPantsMakeTaskMessage(event.getText(), ConsoleViewContentType.NORMAL_OUTPUT, currentProject);
+        output.add(event.getText());
+      }
+    });
+    runningPantsProcesses.put(currentProject, process);
+    processHandler.runProcess();
+    runningPantsProcesses.remove(currentProject, process);
+    // only of interest to whoever tries pantsd out
+    if (started.get() && PantsSettings.getInstance(currentProject).isUsePantsd()) {
+      showPantsMakeTaskMessage(describeStartup(metrics.getSnapshot(), usesPantsd), ConsoleViewContentType.SYSTEM_OUTPUT, currentProject);
+    }
+    return process.exitValue();
+  }
+
+  /**
+   * @return the median Pants startup time in this project, and how much pantsd saves on it once both kinds of runs were seen.
+   */
+  @NotNull
+  private static String describeStartup(@NotNull PantsProjectMetrics.Snapshot snapshot, boolean usesPantsd) {
+    final DurationHistogram.Snapshot withoutPantsd = snapshot.getDuration(PantsProjectMetrics.PANTS_STARTUP);
+    final DurationHistogram.Snapshot withPantsd = snapshot.getDuration(PantsProjectMetrics.PANTS_STARTUP_PANTSD);
+    final DurationHistogram.Snapshot current = usesPantsd ? withPantsd : withoutPantsd;
+    if (current == null) {
+      return "";
+    }
+    final StringBuilder description = new StringBuilder()
+      .append(String.format("Pants startup%s: median %d ms", usesPantsd ? " with pantsd" : "", current.getPercentileMillis(50)));
+    if (withPantsd != null && withoutPantsd != null) {
+      final long saved = withoutPantsd.getPercentileMillis(50) - withPantsd.getPercentileMillis(50);
+      description.append(String.format(", pantsd saves about %d ms per run", saved));
+    }
+    return description.append("\n").toString();
+  }
+
   /**
    * @param currentProject:           current project
    * @param targetAddressesToCompile: set of target addresses given to pants executable (e.g. "::")
@@ -334,8 +403,28 @@ public class PantsMakeBeforeRun extends ExternalSystemBeforeRunTaskProvider {
       currentProject.save();
     }, ModalityState.NON_MODAL);
 
+    return PantsCompileQueue.getInstance(currentProject).compile(
+      targetAddressesToCompile,
+      useCleanAll,
+      (targetAddresses, cleanAll) -> compile(currentProject, targetAddresses, cleanAll)
+    );
+  }
+
+  /**
+   * Compiles the targets unless nothing changed since they were last compiled,
+   * after {@link PantsCompileQueue} has merged them with the ones of the concurrent requests.
+   */
+  @NotNull
+  private PantsExecuteTaskResult compile(
+    @NotNull Project currentProject,
+    @NotNull Set<String> targetAddressesToCompile,
+    boolean useCleanAll
+  ) {
     // If project has not changed since last Compile, return immediately.
+    final PantsProjectMetrics metrics = PantsProjectMetrics.getInstance(currentProject);
+    metrics.increment(PantsProjectMetrics.COUNTER_COMPILES);
     if (!FileChangeTracker.shouldRecompileThenReset(currentProject, targetAddressesToCompile)) {
+      metrics.increment(PantsProjectMetrics.COUNTER_NOOP_COMPILES);
       PantsExternalMetricsListenerManager.getInstance().logIsPantsNoopCompile(true);
       notify("Compile message", "Already up to date.", NotificationType.INFORMATION);
       return new PantsExecuteTaskResult(true, Optional.of(PantsConstants.NOOP_COMPILE));
@@ -345,7 +434,13 @@ public class PantsMakeBeforeRun extends ExternalSystemBeforeRunTaskProvider {
       compileTasks.add("clean-all");
     }
     compileTasks.addAll(Lists.newArrayList("export-classpath", "compile"));
-    return invokePants(currentProject, targetAddressesToCompile, compileTasks, "Compile");
+    final long compileStart = System.nanoTime();
+    try {
+      return invokePants(currentProject, targetAddressesToCompile, compileTasks, "Compile");
+    }
+    finally {
+      metrics.recordDuration(PantsProjectMetrics.COMPILE, System.nanoTime() - compileStart, TimeUnit.NANOSECONDS);
+    }
   }
 
   private void notify(final String title, final String subtitle, NotificationType type) {
@@ -3,40 +3,48 @@
 
 package com.twitter.intellij.pants.file;
 
-import com.google.common.hash.HashCode;
-import com.google.common.hash.HashFunction;
-import com.google.common.hash.Hashing;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.roots.ProjectRootManager;
-import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.openapi.vfs.VirtualFileCopyEvent;
-import com.intellij.openapi.vfs.VirtualFileEvent;
-import com.intellij.openapi.vfs.VirtualFileListener;
 import com.intellij.openapi.vfs.VirtualFileManager;
-import com.intellij.openapi.vfs.VirtualFileMoveEvent;
-import com.intellij.openapi.vfs.VirtualFilePropertyEvent;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileCopyEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileDeleteEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.util.messages.MessageBusConnection;
 import com.twitter.intellij.pants.metrics.PantsExternalMetricsListenerManager;
 import com.twitter.intellij.pants.model.PantsOptions;
+import com.twitter.intellij.pants.service.project.PantsPathExistenceService;
 import com.twitter.intellij.pants.settings.PantsSettings;
 import com.twitter.intellij.pants.util.PantsConstants;
 import com.twitter.intellij.pants.util.PantsUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalTime;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.jar.Manifest;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 import static java.time.temporal.ChronoUnit.MILLIS;
 
@@ -47,11 +55,13 @@ public class FileChangeTracker {
 
   private static FileChangeTracker instance = new FileChangeTracker();
 
-  // One to one relation between VirtualFileListener and Project,
-  // so whenever a VirtualFileListener is triggered, we know which Project is affected.
-  private static ConcurrentHashMap<VirtualFileListener, Project> listenToProjectMap = new ConcurrentHashMap<>();
+  // The connection of the file listener of each Project, so that it can stop listening once the project is closed.
+  private static ConcurrentHashMap<Project, MessageBusConnection> projectConnections = new ConcurrentHashMap<>();
 
-  // Maps from Project to <myIsDirty, lastCompileSnapshot>
+  // The number of changes that made each Project dirty, so that callers can tell whether anything changed in between.
+  private static ConcurrentHashMap<Project, AtomicLong> modificationCounts = new ConcurrentHashMap<>();
+
+  // Maps from Project to <myIsDirty, myDirtyModules, lastCompileSnapshot>
   private static ConcurrentHashMap<Project, ProjectState> projectStates = new ConcurrentHashMap<>();
 
   /**
@@ -59,7 +69,10 @@ public class FileChangeTracker {
    */
   private static class ProjectState {
 
+    // Whether a change may affect any target, e.g. to a BUILD file, or the last compile failed.
     boolean myIsDirty;
+    // Names of the modules with changed files since the last compile.
+    final Set<String> myDirtyModules = ConcurrentHashMap.newKeySet();
     LocalTime myLastModifiedTime;
     Optional<CompileSnapshot> myLastCompileSnapshot;
 
@@ -81,6 +94,14 @@ public class FileChangeTracker {
       myIsDirty = dirty;
     }
 
+    public Set<String> getDirtyModules() {
+      return myDirtyModules;
+    }
+
+    public void addDirtyModules(Set<String> moduleNames) {
+      myDirtyModules.addAll(moduleNames);
+    }
+
     public LocalTime getLastModifiedTime() {
       return myLastModifiedTime;
     }
@@ -102,56 +123,37 @@ public class FileChangeTracker {
     return instance;
   }
 
-  private static void markDirty(@NotNull VirtualFile file, final PantsOptions pantsOptions, @NotNull VirtualFileListener listener) {
-    Project project = listenToProjectMap.get(listener);
-
-    ChangeType changeType = detectChangeType(project, pantsOptions, file);
-    LOG.debug(String.format("Changed: %s. In project: %s", file.getPath(), changeType));
-    if (changeType == ChangeType.UNRELATED) {
-      return;
-    }
-
-    markDirty(project);
-
-    if (changeType == ChangeType.BUILD) {
-      ProjectRefreshListener.notify(project);
-    }
+  public static long getModificationCount(@NotNull Project project) {
+    AtomicLong count = modificationCounts.get(project);
+    return count == null ? 0 : count.get();
   }
 
-  enum ChangeType {
-    UNRELATED,
-    BUILD,
-    OTHER;
-  }
-
-  private static ChangeType detectChangeType(Project project,final PantsOptions pantsOptions, @NotNull VirtualFile file) {
-    ProjectRootManager rootManager = ProjectRootManager.getInstance(project);
-
-    if (rootManager.getFileIndex().getContentRootForFile(file) != null) {
-      boolean isBuildFile = PantsUtil.isBUILDFileName(file.getName());
-      boolean isUnderPantsRepo = PantsUtil.isFileUnderPantsRepo(file);
-
-      Path filePath = Paths.get(file.getPath());
-      boolean shouldBeIgnored =
-          pantsOptions.get(PantsConstants.PANTS_OPTION_PANTS_WORKDIR)
-          .map(workdir -> filePath.startsWith(Paths.get(workdir).toAbsolutePath()))
-          .orElse(filePath.toUri().toString().contains("/.pants.d/"));
-
-      if (isUnderPantsRepo && isBuildFile && !shouldBeIgnored) {
-        return ChangeType.BUILD;
-      }
-
-      return ChangeType.OTHER;
-    }
-
-    return ChangeType.UNRELATED;
+  private static void incrementModificationCount(@NotNull Project project) {
+    modificationCounts.computeIfAbsent(project, p -> new AtomicLong()).incrementAndGet();
   }
 
   public static void markDirty(@NotNull Project project) {
+    incrementModificationCount(project);
     final boolean isDirty = true;
     projectStates.put(project, new ProjectState(isDirty, LocalTime.now(), Optional.empty()));
   }
 
+  /**
+   * Marks only the targets of the modules, and the ones depending on them, as changed.
+   */
+  private static void markDirty(@NotNull Project project, @NotNull Set<String> moduleNames) {
+    incrementModificationCount(project);
+    projectStates.compute(project, (p, state) -> {
+      if (state == null) {
+        final boolean isDirty = true;
+        return new ProjectState(isDirty, LocalTime.now(), Optional.empty());
+      }
+      state.addDirtyModules(moduleNames);
+      state.setLastModifiedTime(LocalTime.now());
+      return state;
+    });
+  }
+
   public static void addManifestJarIntoSnapshot(@NotNull Project project) {
     Optional<CompileSnapshot> snapshot = projectStates.get(project).getLastCompileSnapshot();
     if (!snapshot.isPresent()) {
@@ -166,11 +168,8 @@ public class FileChangeTracker {
     if (!vf.isPresent()) {
       return Optional.empty();
     }
-    HashFunction hf = Hashing.md5();
     try {
-      byte[] bytes = Files.readAllBytes(Paths.get(vf.get().getPath()));
-      HashCode hash = hf.newHasher().putBytes(bytes).hash();
-      return Optional.of(hash.toString());
+      return Optional.of(ManifestJarFingerprints.get(Paths.get(vf.get().getPath())).getHash());
     }
     catch (IOException e) {
       e.printStackTrace();
@@ -204,10 +203,6 @@ public class FileChangeTracker {
       resetProjectState(project, snapshot);
       return true;
     }
-    if (lastRecordedState.isDirty()) {
-      long betweenMilliSec = MILLIS.between(lastRecordedState.getLastModifiedTime(), LocalTime.now());
-      PantsExternalMetricsListenerManager.getInstance().logDurationBeforePantsCompile(betweenMilliSec);
-    }
     Optional<CompileSnapshot> previousSnapshot = lastRecordedState.getLastCompileSnapshot();
     if (
       // Recompile if project is in incremental mode, because there is no way to keep track of the all changes
@@ -215,6 +210,8 @@ public class FileChangeTracker {
       settings.isEnableIncrementalImport()
       // Recompile if project is dirty or there is no previous record.
       || (lastRecordedState.isDirty())
+      // Recompile if a module changed that the targets are or depend on.
+      || isAffectedByDirtyModules(project, lastRecordedState.getDirtyModules(), targetAddresses)
       // Recompile if there is no previous record.
       || !previousSnapshot.isPresent()
       // Recompile if current snapshot is different from previous one.
@@ -223,6 +220,11 @@ public class FileChangeTracker {
       // if manifest is not valid any more.
       || !isManifestJarValid(project)
     ) {
+      // time from the last change to the compile it caused; no-ops leave unrelated dirty modules behind, so they do not log
+      if (lastRecordedState.isDirty() || !lastRecordedState.getDirtyModules().isEmpty()) {
+        long betweenMilliSec = MILLIS.between(lastRecordedState.getLastModifiedTime(), LocalTime.now());
+        PantsExternalMetricsListenerManager.getInstance().logDurationBeforePantsCompile(betweenMilliSec);
+      }
       resetProjectState(project, snapshot);
       return true;
     }
@@ -230,6 +232,51 @@ public class FileChangeTracker {
     return false;
   }
 
+  /**
+   * Check whether the given targets need to be recompiled because of the changes in the dirty modules.
+   * Since a change in a module affects all the modules depending on it, this walks the dependencies
+   * from the modules of the targets.
+   *
+   * @return true if a dirty module is among the modules of the targets or their transitive dependencies,
+   * or if some of the targets don't belong to any module, e.g. "::".
+   */
+  private static boolean isAffectedByDirtyModules(
+    @NotNull Project project,
+    @NotNull Set<String> dirtyModules,
+    @NotNull Set<String> targetAddresses
+  ) {
+    if (dirtyModules.isEmpty()) {
+      return false;
+    }
+    return ReadAction.compute(() -> {
+      Set<String> addressesWithoutModule = new HashSet<>(targetAddresses);
+      Deque<Module> modulesToVisit = new ArrayDeque<>();
+      for (Module module : ModuleManager.getInstance(project).getModules()) {
+        List<String> moduleAddresses = PantsUtil.getNonGenTargetAddresses(module);
+        if (moduleAddresses.stream().anyMatch(targetAddresses::contains)) {
+          addressesWithoutModule.removeAll(moduleAddresses);
+          modulesToVisit.add(module);
+        }
+      }
+      if (!addressesWithoutModule.isEmpty()) {
+        return true;
+      }
+      Set<Module> visited = new HashSet<>(modulesToVisit);
+      while (!modulesToVisit.isEmpty()) {
+        Module module = modulesToVisit.poll();
+        if (dirtyModules.contains(module.getName())) {
+          return true;
+        }
+        for (Module dependency : ModuleRootManager.getInstance(module).getDependencies()) {
+          if (visited.add(dependency)) {
+            modulesToVisit.add(dependency);
+          }
+        }
+      }
+      return false;
+    });
+  }
+
   /**
    * Check whether all the class path entries in the manifest are valid.
    *
@@ -241,25 +288,13 @@ public class FileChangeTracker {
     if (!manifestJar.isPresent()) {
       return false;
     }
-    VirtualFile file = manifestJar.get();
-    if (!new File(file.getPath()).exists()) {
+    Path file = Paths.get(manifestJar.get().getPath());
+    if (!Files.exists(file)) {
       return false;
     }
     try {
-      VirtualFile manifestInJar =
-        VirtualFileManager.getInstance().refreshAndFindFileByUrl("jar://" + file.getPath() + "!/META-INF/MANIFEST.MF");
-      if (manifestInJar == null) {
-        return false;
-      }
-      Manifest manifest = new Manifest(manifestInJar.getInputStream());
-      List<String> relPaths = PantsUtil.parseCmdParameters(manifest.getMainAttributes().getValue("Class-Path"));
-      for (String path : relPaths) {
-        // All rel paths in META-INF/MANIFEST.MF is relative to the jar directory
-        if (!new File(file.getParent().getPath(), path).exists()) {
-          return false;
-        }
-      }
-      return true;
+      List<String> classPath = ManifestJarFingerprints.getClassPath(file, ManifestJarFingerprints.get(file));
+      return PantsPathExistenceService.getInstance().filterExisting(classPath).size() == new HashSet<>(classPath).size();
     }
     catch (IOException e) {
       e.printStackTrace();
@@ -269,6 +304,8 @@ public class FileChangeTracker {
 
   /**
    * Reset project to be clean.
+   * The dirty modules the compile didn't cover can be forgotten as well, because the snapshot
+   * only matches a compile of the same targets.
    */
   private static void resetProjectState(@NotNull Project project, CompileSnapshot snapshot) {
     boolean isDirty = false;
@@ -276,78 +313,107 @@ public class FileChangeTracker {
   }
 
   public static void registerProject(@NotNull Project project, final PantsOptions pantsOptions) {
-    VirtualFileListener listener = getNewListener(pantsOptions);
-    LocalFileSystem.getInstance().addVirtualFileListener(listener);
-    listenToProjectMap.put(listener, project);
+    MessageBusConnection connection = project.getMessageBus().connect();
+    connection.subscribe(VirtualFileManager.VFS_CHANGES, new ProjectFileListener(project, pantsOptions));
+    MessageBusConnection previousConnection = projectConnections.put(project, connection);
+    if (previousConnection != null) {
+      previousConnection.disconnect();
+    }
   }
 
   public static void unregisterProject(@NotNull Project project) {
     projectStates.remove(project);
+    modificationCounts.remove(project);
 
     // Remove the listener for the project.
-    listenToProjectMap.entrySet().stream()
-      .filter(s -> s.getValue() == project)
-      .findFirst()
-      .ifPresent(x -> {
-        VirtualFileListener listener = x.getKey();
-        listenToProjectMap.remove(listener);
-        LocalFileSystem.getInstance().removeVirtualFileListener(listener);
-      });
+    MessageBusConnection connection = projectConnections.remove(project);
+    if (connection != null) {
+      connection.disconnect();
+    }
   }
 
-  private static VirtualFileListener getNewListener(final PantsOptions pantsOptions) {
-    return new VirtualFileListener() {
-
-      private void markDirty(VirtualFile file) {
-        FileChangeTracker.markDirty(file, pantsOptions, this);
-      }
-
-      @Override
-      public void propertyChanged(@NotNull VirtualFilePropertyEvent event) {
-        markDirty(event.getFile());
-      }
+  /**
+   * Marks the project dirty once for each batch of file events, e.g. the thousands of them a `git checkout` gives.
+   */
+  private static class ProjectFileListener implements BulkFileListener {
+    private final Project myProject;
+    // BUILD files under the pants workdir are not part of the build graph.
+    private final Optional<String> myWorkdirPrefix;
+
+    private ProjectFileListener(@NotNull Project project, @NotNull PantsOptions pantsOptions) {
+      myProject = project;
+      myWorkdirPrefix = pantsOptions.get(PantsConstants.PANTS_OPTION_PANTS_WORKDIR)
+        .map(workdir -> FileUtil.toSystemIndependentName(Paths.get(workdir).toAbsolutePath().toString()) + "/");
+    }
 
-      @Override
-      public void contentsChanged(@NotNull VirtualFileEvent event) {
-        markDirty(event.getFile());
-      }
+    @Override
+    public void before(@NotNull List<? extends VFileEvent> events) {
+      // Deleted and moved files can only be found in their module before the change.
+      onChanges(events, event -> event instanceof VFileDeleteEvent || event instanceof VFileMoveEvent);
+    }
 
-      @Override
-      public void fileCreated(@NotNull VirtualFileEvent event) {
-        markDirty(event.getFile());
-      }
+    @Override
+    public void after(@NotNull List<? extends VFileEvent> events) {
+      onChanges(events, event -> !(event instanceof VFileDeleteEvent));
+    }
 
-      @Override
-      public void fileDeleted(@NotNull VirtualFileEvent event) {
-        markDirty(event.getFile());
+    private void onChanges(@NotNull List<? extends VFileEvent> events, @NotNull Predicate<VFileEvent> filter) {
+      if (myProject.isDisposed()) {
+        return;
       }
-
-      @Override
-      public void fileMoved(@NotNull VirtualFileMoveEvent event) {
-        markDirty(event.getFile());
+      ProjectFileIndex fileIndex = ProjectRootManager.getInstance(myProject).getFileIndex();
+      boolean isBuildFileChanged = false;
+      boolean isProjectDirty = false;
+      Set<String> dirtyModules = new HashSet<>();
+      for (VFileEvent event : events) {
+        VirtualFile file = getChangedFile(event);
+        if (file == null || !file.isValid() || !filter.test(event) || fileIndex.getContentRootForFile(file) == null) {
+          continue;
+        }
+        if (isBuildFile(file)) {
+          isBuildFileChanged = true;
+          continue;
+        }
+        Module module = fileIndex.getModuleForFile(file);
+        if (module == null) {
+          isProjectDirty = true;
+        }
+        else {
+          dirtyModules.add(module.getName());
+        }
       }
+      LOG.debug(String.format(
+        "%d file events in project %s. BUILD files changed: %s, dirty modules: %s",
+        events.size(), myProject.getName(), isBuildFileChanged, dirtyModules
+      ));
 
-      @Override
-      public void fileCopied(@NotNull VirtualFileCopyEvent event) {
-        markDirty(event.getFile());
+      if (isBuildFileChanged || isProjectDirty) {
+        markDirty(myProject);
       }
-
-      @Override
-      public void beforePropertyChange(@NotNull VirtualFilePropertyEvent event) {
+      else if (!dirtyModules.isEmpty()) {
+        markDirty(myProject, dirtyModules);
       }
-
-      @Override
-      public void beforeContentsChange(@NotNull VirtualFileEvent event) {
+      if (isBuildFileChanged) {
+        ProjectRefreshListener.notify(myProject);
       }
+    }
 
-      @Override
-      public void beforeFileDeletion(@NotNull VirtualFileEvent event) {
-      }
+    /**
+     * @return the file the event changes, i.e. the copy for a copy event rather than its source.
+     */
+    @Nullable
+    private static VirtualFile getChangedFile(@NotNull VFileEvent event) {
+      return event instanceof VFileCopyEvent ? ((VFileCopyEvent)event).findCreatedFile() : event.getFile();
+    }
 
-      @Override
-      public void beforeFileMovement(@NotNull VirtualFileMoveEvent event) {
+    private boolean isBuildFile(@NotNull VirtualFile file) {
+      if (!PantsUtil.isBUILDFileName(file.getName())) {
+        return false;
       }
-    };
+      String path = file.getPath();
+      boolean shouldBeIgnored = myWorkdirPrefix.map(path::startsWith).orElse(path.contains("/.pants.d/"));
+      return !shouldBeIgnored && PantsUtil.isFileUnderPantsRepo(file);
+    }
   }
 
   /**
@@ -0,0 +1,132 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.file;
+
+import com.google.common.hash.HashCode;
+import com.twitter.intellij.pants.util.PantsUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * MD5 hashes and Class-Path entries of manifest jars, remembered as long as the size and modification time
+ * of the jar stay the same, so that deciding whether to recompile doesn't read the whole jar every time.
+ */
+final class ManifestJarFingerprints {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  // absolute jar path to the fingerprint of its last known content
+  private static final Map<String, Fingerprint> ourFingerprints = new ConcurrentHashMap<>();
+
+  static final class Fingerprint {
+    private final long mySize;
+    private final FileTime myLastModified;
+    private final String myHash;
+    // absolute paths of the Class-Path entries, read the first time they are asked for
+    private volatile List<String> myClassPath;
+
+    private Fingerprint(long size, @NotNull FileTime lastModified, @NotNull String hash) {
+      mySize = size;
+      myLastModified = lastModified;
+      myHash = hash;
+    }
+
+    @NotNull
+    String getHash() {
+      return myHash;
+    }
+
+    private boolean matches(@NotNull BasicFileAttributes attributes) {
+      return mySize == attributes.size() && myLastModified.equals(attributes.lastModifiedTime());
+    }
+  }
+
+  private ManifestJarFingerprints() {
+  }
+
+  /**
+   * @return the fingerprint of the current content of the jar, hashing it again only if its size or
+   * modification time has changed since the last call.
+   */
+  @NotNull
+  static Fingerprint get(@NotNull Path jar) throws IOException {
+    final BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+    final String key = jar.toAbsolutePath().toString();
+    final Fingerprint cached = ourFingerprints.get(key);
+    if (cached != null && cached.matches(attributes)) {
+      return cached;
+    }
+    final Fingerprint fingerprint = new Fingerprint(attributes.size(), attributes.lastModifiedTime(), hash(jar));
+    ourFingerprints.put(key, fingerprint);
+    return fingerprint;
+  }
+
+  /**
+   * @return the absolute paths of the Class-Path entries of the jar the fingerprint was taken of.
+   * Like in any manifest, the entries are relative to the directory of the jar.
+   */
+  @NotNull
+  static List<String> getClassPath(@NotNull Path jar, @NotNull Fingerprint fingerprint) throws IOException {
+    List<String> classPath = fingerprint.myClassPath;
+    if (classPath == null) {
+      classPath = readClassPath(jar);
+      fingerprint.myClassPath = classPath;
+    }
+    return classPath;
+  }
+
+  @NotNull
+  private static String hash(@NotNull Path jar) throws IOException {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("MD5");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    try (FileChannel channel = FileChannel.open(jar, StandardOpenOption.READ)) {
+      final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      while (channel.read(buffer) != -1) {
+        buffer.flip();
+        digest.update(buffer);
+        buffer.clear();
+      }
+    }
+    return HashCode.fromBytes(digest.digest()).toString();
+  }
+
+  @NotNull
+  private static List<String> readClassPath(@NotNull Path jar) throws IOException {
+    final Manifest manifest;
+    try (JarFile jarFile = new JarFile(jar.toFile())) {
+      manifest = jarFile.getManifest();
+    }
+    if (manifest == null) {
+      throw new IOException("No manifest in " + jar);
+    }
+    final File directory = jar.toAbsolutePath().getParent().toFile();
+    final List<String> classPath = new ArrayList<>();
+    for (String path : PantsUtil.parseCmdParameters(manifest.getMainAttributes().getValue("Class-Path"))) {
+      classPath.add(new File(directory, path).getPath());
+    }
+    return Collections.unmodifiableList(classPath);
+  }
+}
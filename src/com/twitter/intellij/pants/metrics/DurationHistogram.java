@@ -0,0 +1,94 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Durations counted in buckets of powers of two milliseconds, so that recording one never takes a lock
+ * and percentiles can be read at any time, accurate up to a factor of two.
+ */
+public class DurationHistogram {
+  // bucket i counts the durations in [2^(i-1), 2^i) milliseconds, bucket 0 the ones below a millisecond
+  private static final int BUCKETS = 64;
+
+  private final AtomicLongArray myBuckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder myCount = new LongAdder();
+  private final LongAdder myTotalMillis = new LongAdder();
+  private final LongAccumulator myMaxMillis = new LongAccumulator(Math::max, 0);
+
+  public void record(long duration, @NotNull TimeUnit unit) {
+    final long millis = Math.max(0, unit.toMillis(duration));
+    myBuckets.incrementAndGet(64 - Long.numberOfLeadingZeros(millis));
+    myCount.increment();
+    myTotalMillis.add(millis);
+    myMaxMillis.accumulate(millis);
+  }
+
+  @NotNull
+  public Snapshot getSnapshot() {
+    final long[] buckets = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets[i] = myBuckets.get(i);
+    }
+    return new Snapshot(buckets, myCount.sum(), myTotalMillis.sum(), myMaxMillis.get());
+  }
+
+  /**
+   * The state of a histogram at one point. Concurrent recording may make its fields disagree slightly.
+   */
+  public static final class Snapshot {
+    private final long[] myBuckets;
+    private final long myCount;
+    private final long myTotalMillis;
+    private final long myMaxMillis;
+
+    private Snapshot(@NotNull long[] buckets, long count, long totalMillis, long maxMillis) {
+      myBuckets = buckets;
+      myCount = count;
+      myTotalMillis = totalMillis;
+      myMaxMillis = maxMillis;
+    }
+
+    public long getCount() {
+      return myCount;
+    }
+
+    public long getTotalMillis() {
+      return myTotalMillis;
+    }
+
+    public long getMaxMillis() {
+      return myMaxMillis;
+    }
+
+    /**
+     * @param percentile between 0 and 100.
+     * @return an upper bound of the duration under which the given percentage of the recorded ones fall.
+     */
+    public long getPercentileMillis(double percentile) {
+      long total = 0;
+      for (long bucket : myBuckets) {
+        total += bucket;
+      }
+      if (total == 0) {
+        return 0;
+      }
+      final long rank = (long)Math.ceil(total * percentile / 100);
+      long seen = 0;
+      for (int i = 0; i < myBuckets.length; i++) {
+        seen += myBuckets[i];
+        if (seen >= rank && seen > 0) {
+          return Math.min(i == 0 ? 0 : (1L << i) - 1, myMaxMillis);
+        }
+      }
+      return myMaxMillis;
+    }
+  }
+}
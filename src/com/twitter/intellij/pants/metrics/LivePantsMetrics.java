@@ -5,6 +5,8 @@ package com.twitter.intellij.pants.metrics;
 
 import com.google.common.base.Stopwatch;
 import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.NotNull;
 
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -28,9 +30,14 @@ import java.util.concurrent.atomic.AtomicInteger;
  * In this case, it is possible `PantsDumbModeListener` will report 5 seconds twice and separately.
  */
 public class LivePantsMetrics implements DumbService.DumbModeListener {
+  private final Project myProject;
   private final Stopwatch indexWatch = Stopwatch.createUnstarted();
   private final AtomicInteger count = new AtomicInteger(0);
 
+  public LivePantsMetrics(@NotNull Project project) {
+    myProject = project;
+  }
+
   @Override
   public void enteredDumbMode() {
     if (count.getAndIncrement() == 0) {
@@ -42,6 +49,7 @@ public class LivePantsMetrics implements DumbService.DumbModeListener {
   public void exitDumbMode() {
     if (count.decrementAndGet() == 0) {
       indexWatch.stop();
+      PantsProjectMetrics.getInstance(myProject).recordDuration(PantsProjectMetrics.DUMB_MODE, indexWatch.elapsed(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
       PantsExternalMetricsListenerManager.getInstance().logIndexingDuration(indexWatch.elapsed(TimeUnit.MILLISECONDS));
       indexWatch.reset();
     }
@@ -4,10 +4,14 @@
 package com.twitter.intellij.pants.metrics;
 
 import com.intellij.openapi.extensions.ExtensionPointName;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
 
 /**
  * This is the listener interface for related events happened in this plugin.
  * Other plugins can subscribe this interface via extension point system.
+ * Counters and durations of a project can also be polled from {@link PantsProjectMetrics#getSnapshot()}.
  */
 public interface PantsExternalMetricsListener {
 
@@ -58,4 +62,29 @@ public interface PantsExternalMetricsListener {
   void logIndexingDuration(long milliSeconds) throws Throwable;
 
   void logEvent(String event);
+
+  /**
+   * Events are queued and delivered in batches on a background thread, in the order they happened.
+   * By default each one is passed on to the method of its kind, and the first failure is rethrown
+   * once all of them have been.
+   */
+  default void logEvents(@NotNull List<PantsMetricsEvent> events) throws Throwable {
+    Throwable failure = null;
+    for (PantsMetricsEvent event : events) {
+      try {
+        event.deliverTo(this);
+      }
+      catch (Throwable t) {
+        if (failure == null) {
+          failure = t;
+        }
+        else {
+          failure.addSuppressed(t);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
 }
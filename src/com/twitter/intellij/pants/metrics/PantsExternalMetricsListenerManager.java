@@ -8,12 +8,29 @@ import com.intellij.execution.configurations.RunConfiguration;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.extensions.ExtensionPointName;
+import com.intellij.openapi.util.EmptyRunnable;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.twitter.intellij.pants.util.PantsUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.TestOnly;
 import org.jetbrains.plugins.scala.testingSupport.test.AbstractTestRunConfiguration;
 
-import java.util.Arrays;
-
-
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Passes the events on to the {@link PantsExternalMetricsListener} extensions without making the caller,
+ * often the EDT or the compile path, wait for them: events are queued and delivered in batches on a background thread.
+ * When listeners fall behind by {@link #CAPACITY} events, new ones are dropped and counted.
+ */
 public class PantsExternalMetricsListenerManager implements PantsExternalMetricsListener {
 
   private static final Logger LOG = Logger.getInstance(PantsExternalMetricsListenerManager.class);
@@ -21,80 +38,49 @@ public class PantsExternalMetricsListenerManager implements PantsExternalMetrics
   private static ExtensionPointName<PantsExternalMetricsListener>
     EP_NAME = ExtensionPointName.create("com.intellij.plugins.pants.pantsExternalMetricsListener");
 
+  static final int CAPACITY = 10000;
+  private static final int MAX_BATCH_SIZE = 500;
+
+  private final Queue<PantsMetricsEvent> myQueue = new ConcurrentLinkedQueue<>();
+  // the size of the queue, which ConcurrentLinkedQueue only computes by traversing it
+  private final AtomicInteger myQueueSize = new AtomicInteger();
+  private final AtomicBoolean myDrainScheduled = new AtomicBoolean();
+  private final AtomicLong myDroppedEvents = new AtomicLong();
+  private long myReportedDroppedEvents = 0;
+  private final ExecutorService myExecutor = AppExecutorUtil.createBoundedApplicationPoolExecutor("Pants Metrics Listeners", 1);
+
   public static PantsExternalMetricsListenerManager getInstance() {
     return (PantsExternalMetricsListenerManager) ServiceManager.getService(PantsExternalMetricsListener.class);
   }
 
   @Override
   public void logIsGUIImport(boolean isGUI) {
-    Arrays.stream(EP_NAME.getExtensions()).forEach(s -> {
-      try {
-        s.logIsGUIImport(isGUI);
-      }
-      catch (Throwable t) {
-        LOG.info(t);
-      }
-    });
+    enqueue(new PantsMetricsEvent(PantsMetricsEvent.Kind.GUI_IMPORT, isGUI));
   }
 
   @Override
   public void logIsIncrementalImport(boolean isIncremental) {
-    Arrays.stream(EP_NAME.getExtensions()).forEach(s -> {
-      try {
-        s.logIsIncrementalImport(isIncremental);
-      }
-      catch (Throwable t) {
-        LOG.info(t);
-      }
-    });
+    enqueue(new PantsMetricsEvent(PantsMetricsEvent.Kind.INCREMENTAL_IMPORT, isIncremental));
   }
 
   @Override
   public void logIsPantsNoopCompile(boolean isNoop) {
-    Arrays.stream(EP_NAME.getExtensions()).forEach(s -> {
-      try {
-        s.logIsPantsNoopCompile(isNoop);
-      }
-      catch (Throwable t) {
-        LOG.info(t);
-      }
-    });
+    enqueue(new PantsMetricsEvent(PantsMetricsEvent.Kind.NOOP_COMPILE, isNoop));
   }
 
   @Override
   public void logTestRunner(PantsExternalMetricsListener.TestRunnerType runner) {
-    Arrays.stream(EP_NAME.getExtensions()).forEach(s -> {
-      try {
-        s.logTestRunner(runner);
-      }
-      catch (Throwable t) {
-        LOG.info(t);
-      }
-    });
+    enqueue(new PantsMetricsEvent(PantsMetricsEvent.Kind.TEST_RUNNER, runner));
   }
 
   @Override
   public void logDurationBeforePantsCompile(long milliSeconds) {
-    Arrays.stream(EP_NAME.getExtensions()).forEach(s -> {
-      try {
-        s.logDurationBeforePantsCompile(milliSeconds);
-      }
-      catch (Throwable t) {
-        LOG.info(t);
-      }
-    });
+    enqueue(new PantsMetricsEvent(PantsMetricsEvent.Kind.DURATION_BEFORE_COMPILE, milliSeconds));
   }
 
   @Override
   public void logIndexingDuration(long milliSeconds) {
-    Arrays.stream(EP_NAME.getExtensions()).forEach(s -> {
-      try {
-        s.logIndexingDuration(milliSeconds);
-      }
-      catch (Throwable t) {
-        LOG.info(t);
-      }
-    });
+    enqueue(new PantsMetricsEvent(PantsMetricsEvent.Kind.INDEXING_DURATION, milliSeconds));
   }
 
   public void logTestRunner(RunConfiguration runConfiguration) {
@@ -104,37 +90,78 @@ public class PantsExternalMetricsListenerManager implements PantsExternalMetrics
      * Use string test on class name due to scala plugin can be optional and it is hard to separate this logic.
      */
     if (PantsUtil.isScalaRelatedTestRunConfiguration(runConfiguration)) {
-      Arrays.stream(EP_NAME.getExtensions()).forEach(s -> {
-        try {
-          s.logTestRunner(TestRunnerType.SCALA_RUNNER);
-        }
-        catch (Throwable t) {
-          LOG.info(t);
-        }
-      });
+      logTestRunner(TestRunnerType.SCALA_RUNNER);
     }
     /**
      * JUnit, Application, etc configuration inherit {@link CommonProgramRunConfigurationParameters}
      */
     else if (runConfiguration instanceof CommonProgramRunConfigurationParameters) {
-      Arrays.stream(EP_NAME.getExtensions()).forEach(s -> {
+      logTestRunner(TestRunnerType.JUNIT_RUNNER);
+    }
+  }
+
+  public void logEvent(String event) {
+    enqueue(new PantsMetricsEvent(PantsMetricsEvent.Kind.EVENT, event));
+  }
+
+  /**
+   * @return the number of events dropped so far because the listeners fell behind.
+   */
+  public long getDroppedEventCount() {
+    return myDroppedEvents.get();
+  }
+
+  /**
+   * Waits until the events logged so far have been delivered.
+   */
+  @TestOnly
+  public void flush() throws InterruptedException, ExecutionException {
+    myExecutor.submit(EmptyRunnable.getInstance()).get();
+  }
+
+  private void enqueue(@NotNull PantsMetricsEvent event) {
+    if (myQueueSize.incrementAndGet() > CAPACITY) {
+      myQueueSize.decrementAndGet();
+      myDroppedEvents.incrementAndGet();
+      return;
+    }
+    myQueue.add(event);
+    if (myDrainScheduled.compareAndSet(false, true)) {
+      myExecutor.execute(this::drain);
+    }
+  }
+
+  /**
+   * Runs on the executor, so never concurrently with itself.
+   */
+  private void drain() {
+    // events added from now on schedule another drain, which may find them already delivered by this one
+    myDrainScheduled.set(false);
+    final List<PantsExternalMetricsListener> listeners = EP_NAME.getExtensionList();
+    while (true) {
+      final List<PantsMetricsEvent> batch = new ArrayList<>();
+      PantsMetricsEvent event;
+      while (batch.size() < MAX_BATCH_SIZE && (event = myQueue.poll()) != null) {
+        batch.add(event);
+      }
+      if (batch.isEmpty()) {
+        break;
+      }
+      myQueueSize.addAndGet(-batch.size());
+      final List<PantsMetricsEvent> unmodifiableBatch = Collections.unmodifiableList(batch);
+      for (PantsExternalMetricsListener listener : listeners) {
         try {
-          s.logTestRunner(TestRunnerType.JUNIT_RUNNER);
+          listener.logEvents(unmodifiableBatch);
         }
         catch (Throwable t) {
           LOG.info(t);
         }
-      });
-    }
-  }
-
-  public void logEvent(String event) {
-    EP_NAME.getExtensionList().forEach(s -> {
-      try {
-        s.logEvent(event);
-      } catch (Throwable t) {
-        LOG.info(t);
       }
-    });
+    }
+    final long droppedEvents = myDroppedEvents.get();
+    if (droppedEvents > myReportedDroppedEvents) {
+      LOG.warn(String.format("Dropped %d metrics events because the listeners fell behind", droppedEvents - myReportedDroppedEvents));
+      myReportedDroppedEvents = droppedEvents;
+    }
   }
 }
@@ -0,0 +1,181 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.metrics;
+
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The phases of one project import, e.g. parsing the export or running a single resolver extension,
+ * with their start and duration, so that a slow import can be attributed to the phase it was spent in.
+ *
+ * Spans may be recorded from any thread. {@link #write} produces the Chrome trace event format,
+ * which can be opened in chrome://tracing or Perfetto.
+ */
+public class PantsImportTrace {
+  public static final String CATEGORY_EXPORT = "export";
+  public static final String CATEGORY_MODIFIER = "modifier";
+  public static final String CATEGORY_RESOLVER = "resolver";
+
+  private final long myStartNanos = System.nanoTime();
+  private final ConcurrentLinkedQueue<Event> myEvents = new ConcurrentLinkedQueue<>();
+
+  public static final class Event {
+    private final String myName;
+    private final String myCategory;
+    // 'X' for a complete span, 'C' for a counter
+    private final char myPhase;
+    private final long myStartMicros;
+    private final long myDurationMicros;
+    private final long myThreadId;
+    private final String myThreadName;
+    private final Map<String, Object> myArgs;
+
+    private Event(
+      @NotNull String name,
+      @NotNull String category,
+      char phase,
+      long startMicros,
+      long durationMicros,
+      @NotNull Map<String, Object> args
+    ) {
+      myName = name;
+      myCategory = category;
+      myPhase = phase;
+      myStartMicros = startMicros;
+      myDurationMicros = durationMicros;
+      myThreadId = Thread.currentThread().getId();
+      myThreadName = Thread.currentThread().getName();
+      myArgs = args;
+    }
+
+    @NotNull
+    public String getName() {
+      return myName;
+    }
+
+    @NotNull
+    public String getCategory() {
+      return myCategory;
+    }
+
+    public long getDuration(@NotNull TimeUnit unit) {
+      return unit.convert(myDurationMicros, TimeUnit.MICROSECONDS);
+    }
+
+    @NotNull
+    public Map<String, Object> getArgs() {
+      return Collections.unmodifiableMap(myArgs);
+    }
+  }
+
+  public final class Span implements AutoCloseable {
+    private final String myName;
+    private final String myCategory;
+    private final long mySpanStartNanos = System.nanoTime();
+    private final Map<String, Object> myArgs = new LinkedHashMap<>();
+
+    private Span(@NotNull String name, @NotNull String category) {
+      myName = name;
+      myCategory = category;
+    }
+
+    @NotNull
+    public Span arg(@NotNull String name, @NotNull Object value) {
+      myArgs.put(name, value);
+      return this;
+    }
+
+    /**
+     * Records the span. It has to be closed on the thread that started it.
+     */
+    @Override
+    public void close() {
+      myEvents.add(new Event(
+        myName,
+        myCategory,
+        'X',
+        toMicros(mySpanStartNanos),
+        TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - mySpanStartNanos),
+        myArgs
+      ));
+    }
+  }
+
+  @NotNull
+  public Span span(@NotNull String name, @NotNull String category) {
+    return new Span(name, category);
+  }
+
+  /**
+   * Records sizes at this point of the import, e.g. the number of data nodes of each kind.
+   */
+  public void counter(@NotNull String name, @NotNull Map<String, ? extends Number> values) {
+    myEvents.add(new Event(name, "size", 'C', toMicros(System.nanoTime()), 0, new LinkedHashMap<>(values)));
+  }
+
+  @NotNull
+  public List<Event> getEvents() {
+    return new ArrayList<>(myEvents);
+  }
+
+  public void write(@NotNull Writer output) throws IOException {
+    final JsonWriter writer = new JsonWriter(output);
+    writer.beginObject();
+    writer.name("traceEvents").beginArray();
+    final Map<Long, String> threadNames = new LinkedHashMap<>();
+    for (Event event : myEvents) {
+      threadNames.put(event.myThreadId, event.myThreadName);
+      writer.beginObject();
+      writer.name("name").value(event.myName);
+      writer.name("cat").value(event.myCategory);
+      writer.name("ph").value(String.valueOf(event.myPhase));
+      writer.name("ts").value(event.myStartMicros);
+      if (event.myPhase == 'X') {
+        writer.name("dur").value(event.myDurationMicros);
+      }
+      writer.name("pid").value(1);
+      writer.name("tid").value(event.myThreadId);
+      writer.name("args").beginObject();
+      for (Map.Entry<String, Object> arg : event.myArgs.entrySet()) {
+        writer.name(arg.getKey());
+        if (arg.getValue() instanceof Number) {
+          writer.value((Number)arg.getValue());
+        }
+        else {
+          writer.value(String.valueOf(arg.getValue()));
+        }
+      }
+      writer.endObject();
+      writer.endObject();
+    }
+    for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+      writer.beginObject();
+      writer.name("name").value("thread_name");
+      writer.name("ph").value("M");
+      writer.name("pid").value(1);
+      writer.name("tid").value(thread.getKey());
+      writer.name("args").beginObject().name("name").value(thread.getValue()).endObject();
+      writer.endObject();
+    }
+    writer.endArray();
+    writer.name("displayTimeUnit").value("ms");
+    writer.endObject();
+    writer.flush();
+  }
+
+  private long toMicros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos - myStartNanos);
+  }
+}
@@ -0,0 +1,81 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * One call of a {@link PantsExternalMetricsListener} method, queued to be delivered later in a batch.
+ */
+public final class PantsMetricsEvent {
+  public enum Kind {
+    GUI_IMPORT,
+    INCREMENTAL_IMPORT,
+    NOOP_COMPILE,
+    TEST_RUNNER,
+    DURATION_BEFORE_COMPILE,
+    INDEXING_DURATION,
+    EVENT
+  }
+
+  private final Kind myKind;
+  private final Object myValue;
+  private final long myTimestamp = System.currentTimeMillis();
+
+  PantsMetricsEvent(@NotNull Kind kind, @Nullable Object value) {
+    myKind = kind;
+    myValue = value;
+  }
+
+  @NotNull
+  public Kind getKind() {
+    return myKind;
+  }
+
+  /**
+   * @return the argument of the listener method: a {@link Boolean}, {@link Long},
+   * {@link PantsExternalMetricsListener.TestRunnerType} or {@link String}, depending on the kind.
+   */
+  @Nullable
+  public Object getValue() {
+    return myValue;
+  }
+
+  /**
+   * @return when the event happened, in milliseconds since the epoch.
+   */
+  public long getTimestamp() {
+    return myTimestamp;
+  }
+
+  /**
+   * Calls the listener method this event stands for.
+   */
+  public void deliverTo(@NotNull PantsExternalMetricsListener listener) throws Throwable {
+    switch (myKind) {
+      case GUI_IMPORT:
+        listener.logIsGUIImport((Boolean)myValue);
+        break;
+      case INCREMENTAL_IMPORT:
+        listener.logIsIncrementalImport((Boolean)myValue);
+        break;
+      case NOOP_COMPILE:
+        listener.logIsPantsNoopCompile((Boolean)myValue);
+        break;
+      case TEST_RUNNER:
+        listener.logTestRunner((PantsExternalMetricsListener.TestRunnerType)myValue);
+        break;
+      case DURATION_BEFORE_COMPILE:
+        listener.logDurationBeforePantsCompile((Long)myValue);
+        break;
+      case INDEXING_DURATION:
+        listener.logIndexingDuration((Long)myValue);
+        break;
+      case EVENT:
+        listener.logEvent((String)myValue);
+        break;
+    }
+  }
+}
@@ -0,0 +1,235 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.metrics;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.twitter.intellij.pants.util.PantsUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of one project: counters, histograms of durations such as exports, compiles and refreshes,
+ * and the trace of the last import.
+ * Recording takes no locks, so it can be done from the compile path and the EDT, and {@link #getSnapshot()}
+ * is cheap enough for {@link PantsExternalMetricsListener}s to poll.
+ */
+public class PantsProjectMetrics implements Disposable {
+  public static final String EXPORT = "export";
+  public static final String LOAD = "load";
+  public static final String INDEXING = "indexing";
+  // every period the project spent in dumb mode, unlike INDEXING, which only covers the one after an import
+  public static final String DUMB_MODE = "dumb_mode";
+  public static final String COMPILE = "compile";
+  // time from starting a Pants process to its first output, with and without pantsd
+  public static final String PANTS_STARTUP = "pants_startup";
+  public static final String PANTS_STARTUP_PANTSD = "pants_startup_pantsd";
+
+  public static final String COUNTER_COMPILES = "compiles";
+  public static final String COUNTER_NOOP_COMPILES = "noop_compiles";
+
+  @Nullable
+  private final Project myProject;
+  private final Map<String, LongAdder> myCounters = new ConcurrentHashMap<>();
+  private final Map<String, DurationHistogram> myDurations = new ConcurrentHashMap<>();
+  // duration name to the System#nanoTime() it started at, for the ones being measured
+  private final Map<String, Long> myRunningDurations = new ConcurrentHashMap<>();
+  private volatile PantsImportTrace myImportTrace = new PantsImportTrace();
+  private volatile ScheduledFuture<?> myIndexingPoll;
+
+  public PantsProjectMetrics(@Nullable Project project) {
+    myProject = project;
+  }
+
+  @NotNull
+  public static PantsProjectMetrics getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, PantsProjectMetrics.class);
+  }
+
+  public void increment(@NotNull String counter) {
+    myCounters.computeIfAbsent(counter, c -> new LongAdder()).increment();
+  }
+
+  public void recordDuration(@NotNull String name, long duration, @NotNull TimeUnit unit) {
+    myDurations.computeIfAbsent(name, n -> new DurationHistogram()).record(duration, unit);
+  }
+
+  /**
+   * Starts measuring a duration, unless it is already being measured.
+   */
+  public void start(@NotNull String name) {
+    myRunningDurations.putIfAbsent(name, System.nanoTime());
+  }
+
+  /**
+   * Records the duration since the matching {@link #start}, if there was one.
+   */
+  public void stop(@NotNull String name) {
+    final Long start = myRunningDurations.remove(name);
+    if (start != null) {
+      recordDuration(name, System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Starts a new trace of an import of this project, replacing the one of the previous import.
+   */
+  @NotNull
+  public PantsImportTrace startImportTrace() {
+    myImportTrace = new PantsImportTrace();
+    return myImportTrace;
+  }
+
+  @NotNull
+  public PantsImportTrace getImportTrace() {
+    return myImportTrace;
+  }
+
+  @NotNull
+  public Snapshot getSnapshot() {
+    final Map<String, Long> counters = new TreeMap<>();
+    for (Map.Entry<String, LongAdder> counter : myCounters.entrySet()) {
+      counters.put(counter.getKey(), counter.getValue().sum());
+    }
+    final Map<String, DurationHistogram.Snapshot> durations = new TreeMap<>();
+    for (Map.Entry<String, DurationHistogram> duration : myDurations.entrySet()) {
+      durations.put(duration.getKey(), duration.getValue().getSnapshot());
+    }
+    return new Snapshot(counters, durations);
+  }
+
+  public static final class Snapshot {
+    private final Map<String, Long> myCounters;
+    private final Map<String, DurationHistogram.Snapshot> myDurations;
+
+    private Snapshot(@NotNull Map<String, Long> counters, @NotNull Map<String, DurationHistogram.Snapshot> durations) {
+      myCounters = Collections.unmodifiableMap(counters);
+      myDurations = Collections.unmodifiableMap(durations);
+    }
+
+    @NotNull
+    public Map<String, Long> getCounters() {
+      return myCounters;
+    }
+
+    public long getCounter(@NotNull String name) {
+      return myCounters.getOrDefault(name, 0L);
+    }
+
+    @NotNull
+    public Map<String, DurationHistogram.Snapshot> getDurations() {
+      return myDurations;
+    }
+
+    @Nullable
+    public DurationHistogram.Snapshot getDuration(@NotNull String name) {
+      return myDurations.get(name);
+    }
+
+    public long getTotalSeconds(@NotNull String name) {
+      final DurationHistogram.Snapshot duration = myDurations.get(name);
+      return duration == null ? 0 : TimeUnit.MILLISECONDS.toSeconds(duration.getTotalMillis());
+    }
+  }
+
+  /**
+   * This starts the indexing timer when certain conditions are met,
+   * because the factor to determine whether indexing has started is
+   * different in unit test and in GUI mode.
+   */
+  public void prepareTimeIndexing() {
+    if (!PantsMetrics.isMetricsEnabled() || myProject == null) {
+      return;
+    }
+    if (ApplicationManager.getApplication().isUnitTestMode()) {
+      // dumb mode is never set in unit test mode
+      start(INDEXING);
+      return;
+    }
+
+    final ScheduledFuture<?> previousPoll = myIndexingPoll;
+    if (previousPoll != null) {
+      previousPoll.cancel(false);
+    }
+    myIndexingPoll = AppExecutorUtil.getAppScheduledExecutorService().schedule(() -> pollIndexingStart(myProject, 1), 0, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Checks once a second, for up to ten seconds, whether the indexing has started.
+   */
+  private void pollIndexingStart(@NotNull Project project, int attempt) {
+    if (project.isDisposed() || attempt > 10) {
+      return;
+    }
+    if (!DumbService.getInstance(project).isDumb()) {
+      myIndexingPoll = AppExecutorUtil.getAppScheduledExecutorService()
+        .schedule(() -> pollIndexingStart(project, attempt + 1), 1, TimeUnit.SECONDS);
+      return;
+    }
+    start(INDEXING);
+    DumbService.getInstance(project).runWhenSmart(() -> {
+      stop(INDEXING);
+      report();
+    });
+  }
+
+  @Override
+  public void dispose() {
+    final ScheduledFuture<?> indexingPoll = myIndexingPoll;
+    if (indexingPoll != null) {
+      indexingPoll.cancel(false);
+    }
+  }
+
+  /**
+   * Writes the total durations to {@link PantsMetrics#getReportFilePath()} and the last import trace next to it,
+   * if metrics are enabled.
+   */
+  public void report() {
+    if (!PantsMetrics.isMetricsEnabled()) {
+      return;
+    }
+    final Snapshot snapshot = getSnapshot();
+    final Map<String, Long> report = new TreeMap<>();
+    for (String name : new String[]{EXPORT, LOAD, INDEXING}) {
+      report.put(name + "_second", snapshot.getTotalSeconds(name));
+    }
+    System.out.println(report);
+    final String reportFilePath = PantsMetrics.getReportFilePath();
+    if (reportFilePath == null) {
+      return;
+    }
+    try (Writer writer = new FileWriter(reportFilePath)) {
+      PantsUtil.gson.toJson(report, writer);
+    }
+    catch (IOException e) {
+      e.printStackTrace();
+    }
+    final String projectName = myProject == null ? "project" : myProject.getName();
+    final File traceFile = new File(new File(reportFilePath).getParentFile(), "trace-" + FileUtil.sanitizeFileName(projectName) + ".json");
+    try (Writer writer = new FileWriter(traceFile)) {
+      myImportTrace.write(writer);
+    }
+    catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+}
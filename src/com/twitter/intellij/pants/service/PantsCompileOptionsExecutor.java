@@ -16,7 +16,6 @@ import com.intellij.util.PathUtil;
 import com.intellij.util.containers.ContainerUtil;
 import com.twitter.intellij.pants.PantsBundle;
 import com.twitter.intellij.pants.PantsExecutionException;
-import com.twitter.intellij.pants.metrics.PantsMetrics;
 import com.twitter.intellij.pants.model.IJRC;
 import com.twitter.intellij.pants.model.PantsCompileOptions;
 import com.twitter.intellij.pants.model.PantsExecutionOptions;
@@ -27,9 +26,15 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.TestOnly;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -80,6 +85,19 @@ public class PantsCompileOptionsExecutor {
     };
   }
 
+  @NotNull
+  @TestOnly
+  public static PantsCompileOptionsExecutor createMock(@NotNull File buildRoot, @NotNull List<String> targetSpecs) {
+    final PantsExecutionSettings settings = new PantsExecutionSettings(targetSpecs, true, false, false, Optional.empty(), false);
+    return new PantsCompileOptionsExecutor(
+      buildRoot,
+      new MyPantsCompileOptions(buildRoot.getPath(), settings),
+      true,
+      Optional.empty()
+    ) {
+    };
+  }
+
   private PantsCompileOptionsExecutor(
     @NotNull File buildRoot,
     @NotNull PantsCompileOptions compilerOptions,
@@ -96,6 +114,10 @@ public class PantsCompileOptionsExecutor {
     return PantsUtil.getRelativeProjectPath(getBuildRoot(), getProjectPath()).get();
   }
 
+  public boolean isResolveSourcesAndDocsForJars() {
+    return myResolveSourcesAndDocsForJars;
+  }
+
   @NotNull
   public Optional<Integer> getIncrementalImportDepth() {
     return myIncrementalImportDepth;
@@ -143,8 +165,11 @@ public class PantsCompileOptionsExecutor {
     return myOptions;
   }
 
+  /**
+   * @return a reader over the export output. The caller is responsible for closing it.
+   */
   @NotNull
-  public String loadProjectStructure(
+  public Reader loadProjectStructure(
     @NotNull Consumer<String> statusConsumer,
     @Nullable ProcessAdapter processAdapter
   ) throws IOException, ExecutionException {
@@ -152,12 +177,26 @@ public class PantsCompileOptionsExecutor {
       return loadProjectStructureFromScript(getProjectPath(), statusConsumer, processAdapter);
     }
     else {
-      return loadProjectStructureFromTargets(statusConsumer, processAdapter);
+      return loadProjectStructureFromTargets(getTargetSpecs(), statusConsumer, processAdapter);
     }
   }
 
+  /**
+   * Exports only {@code targetSpecs} rather than the specs the project was imported with.
+   *
+   * @return a reader over the export output. The caller is responsible for closing it.
+   */
+  @NotNull
+  public Reader loadProjectStructure(
+    @NotNull List<String> targetSpecs,
+    @NotNull Consumer<String> statusConsumer,
+    @Nullable ProcessAdapter processAdapter
+  ) throws IOException, ExecutionException {
+    return loadProjectStructureFromTargets(targetSpecs, statusConsumer, processAdapter);
+  }
+
   @NotNull
-  private static String loadProjectStructureFromScript(
+  private static Reader loadProjectStructureFromScript(
     @NotNull String scriptPath,
     @NotNull Consumer<String> statusConsumer,
     @Nullable ProcessAdapter processAdapter
@@ -167,7 +206,7 @@ public class PantsCompileOptionsExecutor {
     statusConsumer.consume("Executing " + PathUtil.getFileName(scriptPath));
     final ProcessOutput processOutput = PantsUtil.getCmdOutput(commandLine, processAdapter);
     if (processOutput.checkSuccess(LOG)) {
-      return processOutput.getStdout();
+      return new StringReader(processOutput.getStdout());
     }
     else {
       throw new PantsExecutionException("Failed to update the project!", scriptPath, processOutput);
@@ -175,21 +214,21 @@ public class PantsCompileOptionsExecutor {
   }
 
   @NotNull
-  private String loadProjectStructureFromTargets(
+  private Reader loadProjectStructureFromTargets(
+    @NotNull List<String> targetSpecs,
     @NotNull Consumer<String> statusConsumer,
     @Nullable ProcessAdapter processAdapter
   ) throws IOException, ExecutionException {
     final File outputFile = FileUtil.createTempFile("pants_depmap_run", ".out");
-    final GeneralCommandLine command = getPantsExportCommand(outputFile, statusConsumer);
+    final GeneralCommandLine command = getPantsExportCommand(targetSpecs, outputFile, statusConsumer);
     statusConsumer.consume("Resolving dependencies...");
-    PantsMetrics.markExportStart();
     final ProcessOutput processOutput = getProcessOutput(command);
-    PantsMetrics.markExportEnd();
     if (processOutput.getStdout().contains("no such option")) {
       throw new ExternalSystemException("Pants doesn't have necessary APIs. Please upgrade your pants!");
     }
     if (processOutput.checkSuccess(LOG)) {
-      return FileUtil.loadFile(outputFile);
+      // The export can be hundreds of megabytes, so it is streamed rather than loaded into a string.
+      return new BufferedReader(new InputStreamReader(new FileInputStream(outputFile), StandardCharsets.UTF_8));
     }
     else {
       throw new PantsExecutionException("Failed to update the project!", command.getCommandLineString("pants"), processOutput);
@@ -207,8 +246,11 @@ public class PantsCompileOptionsExecutor {
   }
 
   @NotNull
-  private GeneralCommandLine getPantsExportCommand(final File outputFile, @NotNull Consumer<String> statusConsumer)
-    throws IOException {
+  private GeneralCommandLine getPantsExportCommand(
+    @NotNull List<String> targetSpecs,
+    final File outputFile,
+    @NotNull Consumer<String> statusConsumer
+  ) throws IOException {
     final GeneralCommandLine commandLine = PantsUtil.defaultCommandLine(getProjectPath());
 
     // Grab the import stage pants rc file for IntelliJ.
@@ -217,7 +259,7 @@ public class PantsCompileOptionsExecutor {
 
     final File targetSpecsFile = FileUtil.createTempFile("pants_target_specs", ".in");
     try (FileWriter targetSpecsFileWriter = new FileWriter(targetSpecsFile)) {
-      for (String targetSpec : getTargetSpecs()) {
+      for (String targetSpec : targetSpecs) {
         targetSpecsFileWriter.write(targetSpec);
         targetSpecsFileWriter.write('\n');
       }
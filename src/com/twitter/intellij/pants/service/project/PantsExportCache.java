@@ -0,0 +1,531 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.service.project;
+
+import com.intellij.ide.plugins.IdeaPluginDescriptor;
+import com.intellij.ide.plugins.PluginManagerCore;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.extensions.PluginId;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.twitter.intellij.pants.model.IJRC;
+import com.twitter.intellij.pants.model.TargetAddressInfo;
+import com.twitter.intellij.pants.service.PantsCompileOptionsExecutor;
+import com.twitter.intellij.pants.service.project.model.ContentRoot;
+import com.twitter.intellij.pants.service.project.model.LibraryInfo;
+import com.twitter.intellij.pants.service.project.model.ProjectInfo;
+import com.twitter.intellij.pants.service.project.model.ProjectInfoSerializer;
+import com.twitter.intellij.pants.service.project.model.TargetInfo;
+import com.twitter.intellij.pants.util.PantsConstants;
+import com.twitter.intellij.pants.util.PantsUtil;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * On-disk cache of parsed `pants export` results, kept under `.idea/pants-projects/export-cache`.
+ *
+ * Entries are looked up by target specs and export flags, and remember a hash of the BUILD files in every
+ * directory they were produced from, together with the layout of the roots its targets were exported with.
+ * When only some of those changed, only these directories need to be exported again
+ * and spliced into the cached {@link ProjectInfo}, see {@link #splice}.
+ * New BUILD files under recursive specs are found through the modification times of the directories
+ * scanned when the entry was first stored, so that a lookup never walks the whole tree.
+ * A change to pants.ini/pants.toml, to the import rc file or to the plugin invalidates the entry altogether,
+ * and so does an explicit refresh of the project, see {@link #invalidate}.
+ */
+public class PantsExportCache {
+  private static final Logger LOG = Logger.getInstance(PantsExportCache.class);
+
+  public static final String SYSTEM_PROPERTY_EXPORT_CACHE_DISABLE = "pants.export.cache.disable";
+
+  /**
+   * Bump this version whenever the layout of the cache file changes.
+   */
+  private static final int CACHE_VERSION = 4;
+  private static final String RECURSIVE_SPEC_SUFFIX = "::";
+  private static final String DIST_DIR = "dist";
+
+  private final PantsCompileOptionsExecutor myExecutor;
+  /**
+   * Directories under recursive specs, relative to the build root, with their modification time
+   * as of the last scan. Null until {@link #load} read them or {@link #store} scanned them.
+   */
+  @Nullable
+  private Map<String, Long> myScannedDirs;
+  /**
+   * Those of {@link #myScannedDirs} that have a BUILD file.
+   */
+  @NotNull
+  private final Set<String> myScannedBuildFileDirs = new TreeSet<>();
+
+  public PantsExportCache(@NotNull PantsCompileOptionsExecutor executor) {
+    myExecutor = executor;
+  }
+
+  /**
+   * A cached export together with the BUILD file directories that changed since it was stored.
+   */
+  public static class Entry {
+    private final ProjectInfo myProjectInfo;
+    private final Set<String> myChangedDirs;
+
+    Entry(@NotNull ProjectInfo projectInfo, @NotNull Set<String> changedDirs) {
+      myProjectInfo = projectInfo;
+      myChangedDirs = changedDirs;
+    }
+
+    @NotNull
+    public ProjectInfo getProjectInfo() {
+      return myProjectInfo;
+    }
+
+    /**
+     * @return directories relative to the build root whose BUILD files were changed, added or removed.
+     */
+    @NotNull
+    public Set<String> getChangedDirs() {
+      return Collections.unmodifiableSet(myChangedDirs);
+    }
+
+    public boolean isUpToDate() {
+      return myChangedDirs.isEmpty();
+    }
+  }
+
+  public boolean isEnabled() {
+    // The output of an import script cannot be tied to any BUILD files.
+    return !Boolean.getBoolean(SYSTEM_PROPERTY_EXPORT_CACHE_DISABLE) && !PantsUtil.isExecutable(myExecutor.getProjectPath());
+  }
+
+  /**
+   * Drops the cached exports of the build root, so that the next import exports everything again.
+   */
+  public static void invalidate(@NotNull File buildRoot) {
+    FileUtil.delete(getCacheDir(buildRoot));
+  }
+
+  @NotNull
+  public Optional<Entry> load() {
+    if (!isEnabled()) {
+      return Optional.empty();
+    }
+    final File cacheFile = getCacheFile();
+    if (!cacheFile.isFile()) {
+      return Optional.empty();
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+      if (in.readInt() != CACHE_VERSION) {
+        return Optional.empty();
+      }
+      if (!in.readUTF().equals(hashConfiguration())) {
+        LOG.info("Pants configuration changed since the last export, ignoring " + cacheFile);
+        return Optional.empty();
+      }
+      final ProjectInfo projectInfo = ProjectInfoSerializer.read(in);
+      if (projectInfo == null) {
+        return Optional.empty();
+      }
+      final Map<String, String> cachedHashes = new HashMap<>();
+      final int dirCount = in.readInt();
+      for (int i = 0; i < dirCount; i++) {
+        final String dir = in.readUTF();
+        cachedHashes.put(dir, in.readUTF());
+      }
+      final Map<String, Long> scannedDirs = new TreeMap<>();
+      final Set<String> scannedBuildFileDirs = new TreeSet<>();
+      final int scannedDirCount = in.readInt();
+      for (int i = 0; i < scannedDirCount; i++) {
+        final String dir = in.readUTF();
+        scannedDirs.put(dir, in.readLong());
+        if (in.readBoolean()) {
+          scannedBuildFileDirs.add(dir);
+        }
+      }
+
+      final Map<String, List<String>> rootsByDir = getRootsByDir(projectInfo);
+      final Set<String> changedDirs = new TreeSet<>();
+      for (Map.Entry<String, String> dirAndHash : cachedHashes.entrySet()) {
+        final String dir = dirAndHash.getKey();
+        if (!dirAndHash.getValue().equals(hashBuildDir(dir, rootsByDir.getOrDefault(dir, Collections.emptyList())))) {
+          changedDirs.add(dir);
+        }
+      }
+      // A new BUILD file under a recursive spec adds targets without touching any of the known ones.
+      myScannedDirs = scannedDirs;
+      myScannedBuildFileDirs.addAll(scannedBuildFileDirs);
+      rescanModifiedDirs();
+      for (String dir : myScannedBuildFileDirs) {
+        if (!cachedHashes.containsKey(dir)) {
+          changedDirs.add(dir);
+        }
+      }
+      return Optional.of(new Entry(projectInfo, changedDirs));
+    }
+    catch (IOException | RuntimeException e) {
+      LOG.warn("Failed to read cached export " + cacheFile, e);
+      FileUtil.delete(cacheFile);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Has to be called on a freshly parsed or spliced {@link ProjectInfo}, before any modifiers touched it.
+   */
+  public void store(@NotNull ProjectInfo projectInfo) {
+    if (!isEnabled()) {
+      return;
+    }
+    final File cacheFile = getCacheFile();
+    final File tempFile = new File(cacheFile.getPath() + ".tmp");
+    try {
+      if (myScannedDirs == null) {
+        myScannedDirs = new TreeMap<>();
+        for (String spec : myExecutor.getOptions().getSelectedTargetSpecs()) {
+          if (spec.endsWith(RECURSIVE_SPEC_SUFFIX)) {
+            scanDirsRecursively(new File(myExecutor.getBuildRoot(), StringUtil.trimEnd(spec, RECURSIVE_SPEC_SUFFIX)));
+          }
+        }
+      }
+      final Map<String, List<String>> rootsByDir = getRootsByDir(projectInfo);
+      final Set<String> dirs = new TreeSet<>(myScannedBuildFileDirs);
+      dirs.addAll(rootsByDir.keySet());
+      final Map<String, String> hashes = new TreeMap<>();
+      for (String dir : dirs) {
+        hashes.put(dir, hashBuildDir(dir, rootsByDir.getOrDefault(dir, Collections.emptyList())));
+      }
+
+      FileUtil.createParentDirs(tempFile);
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+        out.writeInt(CACHE_VERSION);
+        out.writeUTF(hashConfiguration());
+        ProjectInfoSerializer.write(projectInfo, out);
+        out.writeInt(hashes.size());
+        for (Map.Entry<String, String> dirAndHash : hashes.entrySet()) {
+          out.writeUTF(dirAndHash.getKey());
+          out.writeUTF(dirAndHash.getValue());
+        }
+        out.writeInt(myScannedDirs.size());
+        for (Map.Entry<String, Long> dirAndTimestamp : myScannedDirs.entrySet()) {
+          out.writeUTF(dirAndTimestamp.getKey());
+          out.writeLong(dirAndTimestamp.getValue());
+          out.writeBoolean(myScannedBuildFileDirs.contains(dirAndTimestamp.getKey()));
+        }
+      }
+      FileUtil.rename(tempFile, cacheFile);
+    }
+    catch (IOException e) {
+      LOG.warn("Failed to cache export to " + cacheFile, e);
+      FileUtil.delete(tempFile);
+    }
+  }
+
+  /**
+   * @return specs that export the targets of {@code changedDirs} which still have a BUILD file.
+   */
+  @NotNull
+  public List<String> getSpecsToReexport(@NotNull Collection<String> changedDirs) {
+    final List<String> specs = new ArrayList<>();
+    for (String dir : changedDirs) {
+      final File[] buildFiles = new File(myExecutor.getBuildRoot(), dir).listFiles(PantsExportCache::isBuildFile);
+      if (buildFiles != null && buildFiles.length > 0) {
+        specs.add(dir + ":");
+      }
+    }
+    return specs;
+  }
+
+  /**
+   * Brings a stale entry up to date with a partial export of its changed directories.
+   *
+   * All targets defined in a changed directory are dropped, then every target of {@code update} is put in.
+   * Targets of {@code update} outside of the changed directories come from unchanged BUILD files,
+   * so overwriting their cached copies is harmless and also picks up targets that were not depended on before.
+   * Whether a target is a target root is decided by the original specs, not by the partial export's.
+   * Finally, targets no longer reachable from any target root, e.g. a dependency a changed BUILD file dropped,
+   * are removed, as a full export wouldn't have them either.
+   *
+   * @param update export of {@link #getSpecsToReexport}, or null if all changed directories lost their BUILD files.
+   */
+  @NotNull
+  public ProjectInfo splice(@NotNull Entry entry, @Nullable ProjectInfo update) {
+    final ProjectInfo projectInfo = entry.getProjectInfo();
+    final Set<String> removedTargets = new HashSet<>();
+    for (String address : projectInfo.getTargets().keySet()) {
+      if (entry.myChangedDirs.contains(getAddressDir(address))) {
+        removedTargets.add(address);
+      }
+    }
+    if (update != null) {
+      removedTargets.removeAll(update.getTargets().keySet());
+    }
+    projectInfo.removeTargets(removedTargets);
+
+    if (update != null) {
+      for (Map.Entry<String, TargetInfo> entryToAdd : update.getTargets().entrySet()) {
+        final boolean isTargetRoot = isCoveredBySpecs(entryToAdd.getKey());
+        for (TargetAddressInfo addressInfo : entryToAdd.getValue().getAddressInfos()) {
+          addressInfo.setIsTargetRoot(isTargetRoot);
+        }
+        projectInfo.addTarget(entryToAdd.getKey(), entryToAdd.getValue());
+      }
+      // keep the export order, which the fallback to other library versions relies on
+      final Map<String, LibraryInfo> libraries = new LinkedHashMap<>(projectInfo.getLibraries());
+      libraries.putAll(update.getLibraries());
+      projectInfo.setLibraries(libraries);
+    }
+    removeUnreachableTargets(projectInfo);
+    return projectInfo;
+  }
+
+  private static void removeUnreachableTargets(@NotNull ProjectInfo projectInfo) {
+    final Map<String, TargetInfo> targets = projectInfo.getTargets();
+    final Set<String> reachable = new HashSet<>();
+    final Deque<String> queue = new ArrayDeque<>();
+    for (Map.Entry<String, TargetInfo> entry : targets.entrySet()) {
+      if (entry.getValue().getAddressInfos().stream().anyMatch(TargetAddressInfo::isTargetRoot)) {
+        reachable.add(entry.getKey());
+        queue.add(entry.getKey());
+      }
+    }
+    if (reachable.isEmpty()) {
+      // nothing to tell what is still needed, keep everything
+      return;
+    }
+    while (!queue.isEmpty()) {
+      final TargetInfo info = targets.get(queue.removeFirst());
+      if (info == null) {
+        continue;
+      }
+      for (String dependency : info.getTargets()) {
+        if (reachable.add(dependency)) {
+          queue.add(dependency);
+        }
+      }
+    }
+    final Set<String> unreachable = new HashSet<>(targets.keySet());
+    unreachable.removeAll(reachable);
+    if (!unreachable.isEmpty()) {
+      LOG.info(String.format("Removing %s targets no longer depended on", unreachable.size()));
+      projectInfo.removeTargets(unreachable);
+    }
+  }
+
+  private boolean isCoveredBySpecs(@NotNull String address) {
+    final String dir = getAddressDir(address);
+    for (String spec : myExecutor.getOptions().getSelectedTargetSpecs()) {
+      final String normalizedSpec = StringUtil.trimStart(spec, "//");
+      if (normalizedSpec.endsWith(RECURSIVE_SPEC_SUFFIX)) {
+        final String base = StringUtil.trimEnd(StringUtil.trimEnd(normalizedSpec, RECURSIVE_SPEC_SUFFIX), "/");
+        if (base.isEmpty() || dir.equals(base) || dir.startsWith(base + "/")) {
+          return true;
+        }
+      }
+      else if (normalizedSpec.endsWith(":")) {
+        if (dir.equals(StringUtil.trimEnd(StringUtil.trimEnd(normalizedSpec, ":"), "/"))) {
+          return true;
+        }
+      }
+      else if (normalizedSpec.contains(":")) {
+        if (StringUtil.trimStart(address, "//").equals(normalizedSpec)) {
+          return true;
+        }
+      }
+      else {
+        // `path/to/dir` is a shorthand for `path/to/dir:dir`
+        final String specDir = StringUtil.trimEnd(normalizedSpec, "/");
+        if (StringUtil.trimStart(address, "//").equals(specDir + ":" + new File(specDir).getName())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @NotNull
+  private File getCacheFile() {
+    final String key = StringUtil.join(myExecutor.getOptions().getSelectedTargetSpecs(), "\n") +
+                       "\ndep-as-jar=" + myExecutor.getOptions().isImportSourceDepsAsJars() +
+                       "\nsources-and-docs=" + myExecutor.isResolveSourcesAndDocsForJars();
+    return new File(getCacheDir(myExecutor.getBuildRoot()), DigestUtils.sha1Hex(key) + ".bin");
+  }
+
+  @NotNull
+  private static File getCacheDir(@NotNull File buildRoot) {
+    return Paths.get(buildRoot.getPath(), ".idea", "pants-projects", "export-cache").toFile();
+  }
+
+  /**
+   * @return directory of the BUILD file that defines {@code address}, relative to the build root.
+   */
+  @NotNull
+  private static String getAddressDir(@NotNull String address) {
+    final int nameIndex = address.lastIndexOf(':');
+    final String path = nameIndex >= 0 ? address.substring(0, nameIndex) : address;
+    return StringUtil.trimStart(path, "//");
+  }
+
+  /**
+   * @return raw source roots of the targets of each BUILD file directory.
+   */
+  @NotNull
+  private static Map<String, List<String>> getRootsByDir(@NotNull ProjectInfo projectInfo) {
+    final Map<String, List<String>> result = new HashMap<>();
+    for (Map.Entry<String, TargetInfo> entry : projectInfo.getTargets().entrySet()) {
+      final List<String> roots = result.computeIfAbsent(getAddressDir(entry.getKey()), dir -> new ArrayList<>());
+      for (ContentRoot root : entry.getValue().getRoots()) {
+        roots.add(root.getRawSourceRoot());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Lists again those of {@link #myScannedDirs} that were modified since they were scanned,
+   * and scans the directories that were added to them.
+   */
+  private void rescanModifiedDirs() {
+    final File buildRoot = myExecutor.getBuildRoot();
+    for (String dir : new ArrayList<>(myScannedDirs.keySet())) {
+      final File file = new File(buildRoot, dir);
+      final long timestamp = file.lastModified();
+      if (timestamp == myScannedDirs.get(dir)) {
+        continue;
+      }
+      if (!file.isDirectory()) {
+        // its BUILD files, if any, are known and hashed as gone
+        myScannedDirs.remove(dir);
+        myScannedBuildFileDirs.remove(dir);
+        continue;
+      }
+      scanDir(dir, file);
+      final File[] children = file.listFiles(File::isDirectory);
+      if (children != null) {
+        for (File child : children) {
+          if (!myScannedDirs.containsKey(getRelativePath(child))) {
+            scanDirsRecursively(child);
+          }
+        }
+      }
+    }
+  }
+
+  private void scanDirsRecursively(@NotNull File root) {
+    final File buildRoot = myExecutor.getBuildRoot();
+    PantsUtil.traverseDirectoriesRecursively(root, dir -> {
+      if (dir.getName().startsWith(".") || FileUtil.filesEqual(dir, new File(buildRoot, DIST_DIR))) {
+        return false;
+      }
+      scanDir(getRelativePath(dir), dir);
+      return true;
+    });
+  }
+
+  private void scanDir(@NotNull String relativePath, @NotNull File dir) {
+    myScannedDirs.put(relativePath, dir.lastModified());
+    final String[] names = dir.list();
+    if (names != null && Arrays.stream(names).anyMatch(PantsUtil::isBUILDFileName)) {
+      myScannedBuildFileDirs.add(relativePath);
+    }
+    else {
+      myScannedBuildFileDirs.remove(relativePath);
+    }
+  }
+
+  @NotNull
+  private String getRelativePath(@NotNull File file) {
+    final File buildRoot = myExecutor.getBuildRoot();
+    if (FileUtil.filesEqual(file, buildRoot)) {
+      return "";
+    }
+    return FileUtil.toSystemIndependentName(StringUtil.notNullize(FileUtil.getRelativePath(buildRoot, file)));
+  }
+
+  /**
+   * Covers the Pants configuration, the import rc file and the plugin version, which all affect every target.
+   */
+  @NotNull
+  private String hashConfiguration() throws IOException {
+    final MessageDigest digest = DigestUtils.getSha1Digest();
+    hashFile(digest, new File(myExecutor.getBuildRoot(), PantsConstants.PANTS_INI));
+    hashFile(digest, new File(myExecutor.getBuildRoot(), PantsConstants.PANTS_TOML));
+    hashFile(digest, new File(myExecutor.getBuildRoot(), IJRC.IMPORT_RC_FILENAME));
+    final String pluginVersion = Optional.ofNullable(PluginManagerCore.getPlugin(PluginId.getId(PantsConstants.PLUGIN_ID)))
+      .map(IdeaPluginDescriptor::getVersion)
+      .orElse("");
+    digest.update(pluginVersion.getBytes(StandardCharsets.UTF_8));
+    return Hex.encodeHexString(digest.digest());
+  }
+
+  /**
+   * Covers the BUILD files of {@code dir} and the subdirectories of the roots its targets were exported with.
+   * A new package changes the roots of a target without touching its BUILD file.
+   */
+  @NotNull
+  private String hashBuildDir(@NotNull String dir, @NotNull Collection<String> roots) throws IOException {
+    final MessageDigest digest = DigestUtils.getSha1Digest();
+    final File[] buildFiles = new File(myExecutor.getBuildRoot(), dir).listFiles(PantsExportCache::isBuildFile);
+    if (buildFiles != null) {
+      Arrays.sort(buildFiles);
+      for (File buildFile : buildFiles) {
+        hashFile(digest, buildFile);
+      }
+    }
+    for (String root : new TreeSet<>(roots)) {
+      digest.update(root.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte)0);
+      final File rootFile = FileUtil.isAbsolute(root) ? new File(root) : new File(myExecutor.getBuildRoot(), root);
+      final String[] subdirectories = rootFile.list((parent, name) -> new File(parent, name).isDirectory());
+      digest.update((byte)(subdirectories != null ? 1 : 0));
+      if (subdirectories != null) {
+        Arrays.sort(subdirectories);
+        for (String subdirectory : subdirectories) {
+          digest.update(subdirectory.getBytes(StandardCharsets.UTF_8));
+          digest.update((byte)0);
+        }
+      }
+    }
+    return Hex.encodeHexString(digest.digest());
+  }
+
+  private static boolean isBuildFile(@NotNull File file) {
+    return file.isFile() && PantsUtil.isBUILDFileName(file.getName());
+  }
+
+  private static void hashFile(@NotNull MessageDigest digest, @NotNull File file) throws IOException {
+    digest.update(file.getName().getBytes(StandardCharsets.UTF_8));
+    if (file.isFile()) {
+      digest.update(Files.readAllBytes(file.toPath()));
+    }
+  }
+}
@@ -0,0 +1,128 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.service.project;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Checks whether many files exist at once, e.g. the jars of all libraries of a project.
+ *
+ * Paths are checked in parallel, one task per directory. The answers are remembered across imports
+ * as long as the modification time of their directory stays the same, since adding or removing
+ * a file changes it. That way a refresh with a warm jar cache only looks at the cache directories.
+ * Only the most recently used directories are kept, and symlinks are always checked again,
+ * since their target can be removed without touching the directory of the link.
+ */
+public class PantsPathExistenceService {
+  private final ExecutorService myExecutor = AppExecutorUtil.createBoundedApplicationPoolExecutor(
+    "Pants Path Existence Checker", Math.max(2, Runtime.getRuntime().availableProcessors())
+  );
+  private static final int MAX_DIRECTORIES = 20000;
+
+  // directory path to the known state of its files, least recently used first
+  private final Map<String, DirectoryState> myDirectories = Collections.synchronizedMap(
+    new LinkedHashMap<String, DirectoryState>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, DirectoryState> eldest) {
+        return size() > MAX_DIRECTORIES;
+      }
+    }
+  );
+
+  private static final class DirectoryState {
+    private final long myLastModified;
+    private final Map<String, Boolean> myExistingPaths = new ConcurrentHashMap<>();
+
+    private DirectoryState(long lastModified) {
+      myLastModified = lastModified;
+    }
+  }
+
+  public static PantsPathExistenceService getInstance() {
+    return ServiceManager.getService(PantsPathExistenceService.class);
+  }
+
+  /**
+   * @return those of {@code paths} that exist.
+   */
+  @NotNull
+  public Set<String> filterExisting(@NotNull Collection<String> paths) {
+    final Map<String, List<String>> pathsByDirectory = new HashMap<>();
+    for (String path : paths) {
+      final String directory = new File(path).getParent();
+      pathsByDirectory.computeIfAbsent(directory != null ? directory : path, d -> new ArrayList<>()).add(path);
+    }
+
+    final List<Future<List<String>>> futures = new ArrayList<>(pathsByDirectory.size());
+    for (Map.Entry<String, List<String>> directoryAndPaths : pathsByDirectory.entrySet()) {
+      futures.add(myExecutor.submit(() -> filterExisting(directoryAndPaths.getKey(), directoryAndPaths.getValue())));
+    }
+    final Set<String> result = new HashSet<>();
+    try {
+      for (Future<List<String>> future : futures) {
+        result.addAll(future.get());
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ProcessCanceledException(e);
+    }
+    catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+    return result;
+  }
+
+  @NotNull
+  private List<String> filterExisting(@NotNull String directory, @NotNull List<String> paths) {
+    final long lastModified = new File(directory).lastModified();
+    if (lastModified == 0L) {
+      // the directory doesn't exist, or can't be accessed
+      myDirectories.remove(directory);
+      return Collections.emptyList();
+    }
+    final DirectoryState state = myDirectories.compute(
+      directory,
+      (d, previousState) -> previousState != null && previousState.myLastModified == lastModified
+                            ? previousState
+                            : new DirectoryState(lastModified)
+    );
+    final List<String> result = new ArrayList<>(paths.size());
+    for (String path : paths) {
+      Boolean exists = state.myExistingPaths.get(path);
+      if (exists == null) {
+        final Path file = Paths.get(path);
+        exists = Files.exists(file);
+        if (!Files.isSymbolicLink(file)) {
+          state.myExistingPaths.put(path, exists);
+        }
+      }
+      if (exists) {
+        result.add(path);
+      }
+    }
+    return result;
+  }
+}
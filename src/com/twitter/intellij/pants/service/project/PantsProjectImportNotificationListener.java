@@ -6,7 +6,7 @@ package com.twitter.intellij.pants.service.project;
 import com.intellij.openapi.externalSystem.model.task.ExternalSystemTaskId;
 import com.intellij.openapi.externalSystem.model.task.ExternalSystemTaskNotificationListenerAdapter;
 import com.intellij.openapi.project.Project;
-import com.twitter.intellij.pants.metrics.PantsMetrics;
+import com.twitter.intellij.pants.metrics.PantsProjectMetrics;
 import com.twitter.intellij.pants.util.PantsUtil;
 import org.jetbrains.annotations.NotNull;
 
@@ -18,10 +18,11 @@ public class PantsProjectImportNotificationListener extends ExternalSystemTaskNo
   @Override
   public void onStart(@NotNull ExternalSystemTaskId id, String workingDir) {
     super.onStart(id, workingDir);
-    if (id.findProject() == null) {
+    Project project = id.findProject();
+    if (project == null) {
       return;
     }
-    PantsMetrics.markResolveStart();
+    PantsProjectMetrics.getInstance(project).start(PantsProjectMetrics.LOAD);
   }
 
   @Override
@@ -30,8 +31,9 @@ public class PantsProjectImportNotificationListener extends ExternalSystemTaskNo
     if (project == null) {
       return;
     }
-    PantsMetrics.markResolveEnd();
-    PantsMetrics.prepareTimeIndexing(project);
+    final PantsProjectMetrics metrics = PantsProjectMetrics.getInstance(project);
+    metrics.stop(PantsProjectMetrics.LOAD);
+    metrics.prepareTimeIndexing();
     // Sync files as generated sources may have changed after `pants export` called
     // due to import and refresh.
     PantsUtil.synchronizeFiles();
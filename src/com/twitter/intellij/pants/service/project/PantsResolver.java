@@ -3,6 +3,7 @@
 
 package com.twitter.intellij.pants.service.project;
 
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonSyntaxException;
 import com.intellij.execution.ExecutionException;
 import com.intellij.execution.process.ProcessAdapter;
@@ -17,20 +18,29 @@ import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.Consumer;
 import com.twitter.intellij.pants.PantsBundle;
 import com.twitter.intellij.pants.PantsException;
+import com.twitter.intellij.pants.metrics.PantsImportTrace;
+import com.twitter.intellij.pants.metrics.PantsProjectMetrics;
 import com.twitter.intellij.pants.model.SimpleExportResult;
 import com.twitter.intellij.pants.service.PantsCompileOptionsExecutor;
 import com.twitter.intellij.pants.service.project.model.graph.BuildGraph;
 import com.twitter.intellij.pants.service.project.model.ProjectInfo;
+import com.twitter.intellij.pants.service.project.model.TargetInfo;
 import com.twitter.intellij.pants.util.PantsConstants;
 import com.twitter.intellij.pants.util.PantsUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.TestOnly;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 public class PantsResolver {
   /**
@@ -45,9 +55,17 @@ public class PantsResolver {
   protected static final Logger LOG = Logger.getInstance(PantsResolver.class);
   protected final PantsCompileOptionsExecutor myExecutor;
   protected ProjectInfo myProjectInfo = null;
+  private final PantsProjectMetrics myMetrics;
+  private final PantsImportTrace myTrace;
 
   public PantsResolver(@NotNull PantsCompileOptionsExecutor executor) {
+    this(executor, new PantsProjectMetrics(null));
+  }
+
+  public PantsResolver(@NotNull PantsCompileOptionsExecutor executor, @NotNull PantsProjectMetrics metrics) {
     myExecutor = executor;
+    myMetrics = metrics;
+    myTrace = metrics.startImportTrace();
   }
 
   public static ProjectInfo parseProjectInfoFromJSON(@NotNull String data) throws JsonSyntaxException {
@@ -58,6 +76,46 @@ public class PantsResolver {
     return ProjectInfo.fromJson(data);
   }
 
+  /**
+   * Streaming counterpart of {@link #parseProjectInfoFromJSON(String)}.
+   *
+   * @return null if there is no output at all.
+   */
+  @Nullable
+  public static ProjectInfo parseProjectInfoFromJSON(@NotNull Reader data) throws JsonParseException, IOException {
+    final BufferedReader reader = data instanceof BufferedReader ? (BufferedReader)data : new BufferedReader(data);
+    if (!skipToJsonStart(reader)) {
+      return null;
+    }
+    return ProjectInfo.fromJson(reader);
+  }
+
+  /**
+   * Scripts may print other things before the JSON, which is then expected to start on a line of its own.
+   *
+   * @return false if the end of the output has been reached.
+   */
+  private static boolean skipToJsonStart(@NotNull BufferedReader reader) throws IOException {
+    boolean atLineStart = true;
+    while (true) {
+      reader.mark(1);
+      final int c = reader.read();
+      if (c == -1) {
+        return false;
+      }
+      if (c == '{' && atLineStart) {
+        reader.reset();
+        return true;
+      }
+      if (c == '\n') {
+        atLineStart = true;
+      }
+      else if (!Character.isWhitespace(c)) {
+        atLineStart = false;
+      }
+    }
+  }
+
   @Nullable
   public ProjectInfo getProjectInfo() {
     return myProjectInfo;
@@ -68,29 +126,75 @@ public class PantsResolver {
     myProjectInfo = projectInfo;
   }
 
-  private void parse(final String output) {
+  private void parse(@NotNull Reader output) throws IOException {
     myProjectInfo = null;
-    if (output.isEmpty()) throw new ExternalSystemException("Not output from pants");
-    try {
+    try (PantsImportTrace.Span ignored = myTrace.span("parse export", PantsImportTrace.CATEGORY_EXPORT)) {
       myProjectInfo = parseProjectInfoFromJSON(output);
     }
-    catch (JsonSyntaxException e) {
-      LOG.warn("Can't parse output\n" + output, e);
+    catch (JsonParseException e) {
+      LOG.warn("Can't parse output", e);
       throw new ExternalSystemException("Can't parse project structure!");
     }
+    if (myProjectInfo == null) throw new ExternalSystemException("Not output from pants");
   }
 
   public void resolve(
     @NotNull Consumer<String> statusConsumer,
     @Nullable ProcessAdapter processAdapter
   ) {
+    final PantsExportCache exportCache = new PantsExportCache(myExecutor);
+    final Optional<PantsExportCache.Entry> cacheEntry;
+    try (PantsImportTrace.Span ignored = myTrace.span("load export cache", PantsImportTrace.CATEGORY_EXPORT)) {
+      cacheEntry = exportCache.load();
+    }
+    if (cacheEntry.isPresent() && cacheEntry.get().isUpToDate()) {
+      statusConsumer.consume("Using cached project structure");
+      myProjectInfo = cacheEntry.get().getProjectInfo();
+      return;
+    }
     try {
-      String pantsExportResult = myExecutor.loadProjectStructure(statusConsumer, processAdapter);
-      parse(pantsExportResult);
+      if (cacheEntry.isPresent()) {
+        final List<String> specs = exportCache.getSpecsToReexport(cacheEntry.get().getChangedDirs());
+        LOG.info(String.format("Re-exporting %s changed BUILD directories", cacheEntry.get().getChangedDirs().size()));
+        ProjectInfo update = null;
+        if (!specs.isEmpty()) {
+          try (Reader pantsExportResult = loadProjectStructure(specs, statusConsumer, processAdapter)) {
+            parse(pantsExportResult);
+          }
+          update = myProjectInfo;
+        }
+        myProjectInfo = exportCache.splice(cacheEntry.get(), update);
+      }
+      else {
+        try (Reader pantsExportResult = loadProjectStructure(null, statusConsumer, processAdapter)) {
+          parse(pantsExportResult);
+        }
+      }
     }
     catch (ExecutionException | IOException e) {
       throw new ExternalSystemException(e);
     }
+    exportCache.store(myProjectInfo);
+  }
+
+  /**
+   * @param specs the specs to export, or null for the ones of the project.
+   */
+  @NotNull
+  private Reader loadProjectStructure(
+    @Nullable List<String> specs,
+    @NotNull Consumer<String> statusConsumer,
+    @Nullable ProcessAdapter processAdapter
+  ) throws IOException, ExecutionException {
+    myMetrics.start(PantsProjectMetrics.EXPORT);
+    try (PantsImportTrace.Span ignored = myTrace.span("pants export", PantsImportTrace.CATEGORY_EXPORT)) {
+      return specs == null
+             ? myExecutor.loadProjectStructure(statusConsumer, processAdapter)
+             : myExecutor.loadProjectStructure(specs, statusConsumer, processAdapter);
+    }
+    finally {
+      myMetrics.stop(PantsProjectMetrics.EXPORT);
+    }
   }
 
   public void addInfoTo(@NotNull DataNode<ProjectData> projectInfoDataNode) {
@@ -99,23 +203,50 @@ public class PantsResolver {
 
     LOG.debug("Amount of targets before modifiers: " + myProjectInfo.getTargets().size());
     for (PantsProjectInfoModifierExtension modifier : PantsProjectInfoModifierExtension.EP_NAME.getExtensions()) {
-      modifier.modify(myProjectInfo, myExecutor, LOG);
+      try (PantsImportTrace.Span span = myTrace.span(modifier.getClass().getSimpleName(), PantsImportTrace.CATEGORY_MODIFIER)) {
+        span.arg("targets before", myProjectInfo.getTargets().size());
+        modifier.modify(myProjectInfo, myExecutor, LOG);
+        span.arg("targets after", myProjectInfo.getTargets().size());
+      }
     }
     LOG.debug("Amount of targets after modifiers: " + myProjectInfo.getTargets().size());
 
-    Optional<BuildGraph> buildGraph = constructBuildGraph(projectInfoDataNode);
+    final Optional<BuildGraph> buildGraph;
+    try (PantsImportTrace.Span ignored = myTrace.span("build graph", PantsImportTrace.CATEGORY_RESOLVER)) {
+      buildGraph = constructBuildGraph(projectInfoDataNode);
+    }
 
     PropertiesComponent.getInstance().setValues(PantsConstants.PANTS_AVAILABLE_TARGETS_KEY, myProjectInfo.getAvailableTargetTypes());
     final Map<String, DataNode<ModuleData>> modules = new HashMap<>();
-    for (PantsResolverExtension resolver : PantsResolverExtension.EP_NAME.getExtensions()) {
-      resolver.resolve(myProjectInfo, myExecutor, projectInfoDataNode, modules, buildGraph);
-    }
+    final List<Map.Entry<String, TargetInfo>> sortedTargets = myProjectInfo.getSortedTargets();
+    new PantsResolverExtensionScheduler(PantsResolverExtension.EP_NAME.getExtensionList()).run(resolver -> {
+      try (PantsImportTrace.Span ignored = myTrace.span(resolver.getClass().getSimpleName(), PantsImportTrace.CATEGORY_RESOLVER)) {
+        resolver.resolve(myProjectInfo, sortedTargets, myExecutor, projectInfoDataNode, modules, buildGraph);
+      }
+    });
+    myProjectInfo.logLibrarySubstitutions();
+    myTrace.counter("data nodes", countDataNodes(projectInfoDataNode));
     if (LOG.isDebugEnabled()) {
       final int amountOfModules = PantsUtil.findChildren(projectInfoDataNode, ProjectKeys.MODULE).size();
       LOG.debug("Amount of modules created: " + amountOfModules);
     }
   }
 
+  /**
+   * @return the number of nodes of each data type in the tree below the given node.
+   */
+  @NotNull
+  private static Map<String, Integer> countDataNodes(@NotNull DataNode<?> root) {
+    final Map<String, Integer> result = new TreeMap<>();
+    final Deque<DataNode<?>> nodes = new ArrayDeque<>(root.getChildren());
+    while (!nodes.isEmpty()) {
+      final DataNode<?> node = nodes.pop();
+      result.merge(node.getKey().getDataType(), 1, Integer::sum);
+      nodes.addAll(node.getChildren());
+    }
+    return result;
+  }
+
   private Optional<BuildGraph> constructBuildGraph(@NotNull DataNode<ProjectData> projectInfoDataNode) {
     Optional<BuildGraph> buildGraph;
     if (myExecutor.getOptions().incrementalImportDepth().isPresent()) {
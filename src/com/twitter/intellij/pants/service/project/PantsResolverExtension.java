@@ -6,20 +6,35 @@ package com.twitter.intellij.pants.service.project;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.extensions.ExtensionPointName;
 import com.intellij.openapi.externalSystem.model.DataNode;
+import com.intellij.openapi.externalSystem.model.Key;
 import com.intellij.openapi.externalSystem.model.project.ModuleData;
 import com.intellij.openapi.externalSystem.model.project.ProjectData;
 import com.twitter.intellij.pants.service.PantsCompileOptionsExecutor;
+import com.twitter.intellij.pants.service.project.model.TargetInfo;
 import com.twitter.intellij.pants.service.project.model.graph.BuildGraph;
 import com.twitter.intellij.pants.service.project.model.ProjectInfo;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Extensions are run by {@link PantsResolverExtensionScheduler}. An extension that declares the data keys it reads
+ * and writes may run concurrently with other extensions that do not touch the same keys, and then has to add children
+ * through {@link com.twitter.intellij.pants.util.PantsUtil#createChild}.
+ * Extensions touching the same keys run in the order they are registered in.
+ */
 public interface PantsResolverExtension {
   Logger LOG = Logger.getInstance(PantsResolverExtension.class);
   ExtensionPointName<PantsResolverExtension> EP_NAME = ExtensionPointName.create("com.intellij.plugins.pants.projectResolver");
 
+  /**
+   * @param modules module nodes by target name, filled by the extension writing {@code ProjectKeys.MODULE}.
+   */
   void resolve(
     @NotNull ProjectInfo projectInfo,
     @NotNull PantsCompileOptionsExecutor executor,
@@ -27,4 +42,47 @@ public interface PantsResolverExtension {
     @NotNull Map<String, DataNode<ModuleData>> modules,
     @NotNull Optional<BuildGraph> buildGraph
   );
+
+  /**
+   * Called instead of the method above by the resolver, which sorts the targets once for all extensions.
+   * Extensions going through the targets in order should override it.
+   *
+   * @param sortedTargets {@code projectInfo.getSortedTargets()}.
+   */
+  default void resolve(
+    @NotNull ProjectInfo projectInfo,
+    @NotNull List<Map.Entry<String, TargetInfo>> sortedTargets,
+    @NotNull PantsCompileOptionsExecutor executor,
+    @NotNull DataNode<ProjectData> projectDataNode,
+    @NotNull Map<String, DataNode<ModuleData>> modules,
+    @NotNull Optional<BuildGraph> buildGraph
+  ) {
+    resolve(projectInfo, executor, projectDataNode, modules, buildGraph);
+  }
+
+  /**
+   * @return extensions that have to finish before this one, in addition to the ones implied by the data keys.
+   */
+  @NotNull
+  default Collection<Class<? extends PantsResolverExtension>> getDependencies() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * @return keys of the data created by other extensions this one looks at, or null if unknown.
+   * Reading the {@code modules} map counts as reading {@code ProjectKeys.MODULE}.
+   */
+  @Nullable
+  default Collection<Key<?>> getReadKeys() {
+    return null;
+  }
+
+  /**
+   * @return keys of the data this extension creates, or null if unknown.
+   * Extensions with unknown keys never run concurrently with any other extension.
+   */
+  @Nullable
+  default Collection<Key<?>> getWrittenKeys() {
+    return null;
+  }
 }
@@ -0,0 +1,117 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.service.project;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.externalSystem.model.Key;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Runs {@link PantsResolverExtension}s on the application pool, each one as soon as all the extensions
+ * it depends on have finished. An extension depends on the extensions it declares in
+ * {@link PantsResolverExtension#getDependencies()} and on every extension registered before it
+ * that writes keys it reads or writes, or reads keys it writes.
+ */
+public class PantsResolverExtensionScheduler {
+  private static final Logger LOG = Logger.getInstance(PantsResolverExtensionScheduler.class);
+
+  private final List<PantsResolverExtension> myExtensions;
+  private final List<Set<Integer>> myPredecessors;
+
+  public PantsResolverExtensionScheduler(@NotNull List<PantsResolverExtension> extensions) {
+    myExtensions = extensions;
+    myPredecessors = new ArrayList<>(extensions.size());
+    for (int j = 0; j < extensions.size(); j++) {
+      final PantsResolverExtension extension = extensions.get(j);
+      final Set<Integer> predecessors = new TreeSet<>();
+      for (int i = 0; i < j; i++) {
+        if (conflict(extensions.get(i), extension)) {
+          predecessors.add(i);
+        }
+      }
+      for (Class<? extends PantsResolverExtension> dependency : extension.getDependencies()) {
+        for (int i = 0; i < extensions.size(); i++) {
+          if (!dependency.isInstance(extensions.get(i))) {
+            continue;
+          }
+          if (i < j) {
+            predecessors.add(i);
+          }
+          else {
+            LOG.warn(String.format(
+              "%s depends on %s which is registered after it, ignoring the dependency",
+              extension.getClass().getName(), dependency.getName()
+            ));
+          }
+        }
+      }
+      myPredecessors.add(predecessors);
+    }
+  }
+
+  /**
+   * @return indices of the extensions that have to finish before the extension at {@code index} starts.
+   */
+  @NotNull
+  Set<Integer> getPredecessors(int index) {
+    return Collections.unmodifiableSet(myPredecessors.get(index));
+  }
+
+  public void run(@NotNull Consumer<PantsResolverExtension> resolve) {
+    if (ApplicationManager.getApplication().isDispatchThread()) {
+      // Extensions may need to show a dialog, which cannot be done while the dispatch thread waits for them.
+      myExtensions.forEach(resolve);
+      return;
+    }
+
+    final List<CompletableFuture<Void>> futures = new ArrayList<>(myExtensions.size());
+    for (int j = 0; j < myExtensions.size(); j++) {
+      final PantsResolverExtension extension = myExtensions.get(j);
+      final CompletableFuture<?>[] predecessors =
+        myPredecessors.get(j).stream().map(futures::get).toArray(CompletableFuture[]::new);
+      futures.add(
+        CompletableFuture.allOf(predecessors)
+          .thenRunAsync(() -> resolve.accept(extension), AppExecutorUtil.getAppExecutorService())
+      );
+    }
+    try {
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+    catch (CompletionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error)cause;
+      }
+      throw e;
+    }
+  }
+
+  private static boolean conflict(@NotNull PantsResolverExtension first, @NotNull PantsResolverExtension second) {
+    final Collection<Key<?>> firstReads = first.getReadKeys();
+    final Collection<Key<?>> firstWrites = first.getWrittenKeys();
+    final Collection<Key<?>> secondReads = second.getReadKeys();
+    final Collection<Key<?>> secondWrites = second.getWrittenKeys();
+    if (firstReads == null || firstWrites == null || secondReads == null || secondWrites == null) {
+      return true;
+    }
+    return !Collections.disjoint(firstWrites, secondWrites) ||
+           !Collections.disjoint(firstWrites, secondReads) ||
+           !Collections.disjoint(firstReads, secondWrites);
+  }
+}
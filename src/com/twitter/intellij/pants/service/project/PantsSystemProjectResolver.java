@@ -42,6 +42,7 @@ import com.intellij.openapi.wm.ToolWindowId;
 import com.intellij.openapi.wm.ToolWindowManager;
 import com.intellij.util.messages.MessageBusConnection;
 import com.twitter.intellij.pants.metrics.PantsExternalMetricsListenerManager;
+import com.twitter.intellij.pants.metrics.PantsProjectMetrics;
 import com.twitter.intellij.pants.projectview.PantsProjectPaneSelectInTarget;
 import com.twitter.intellij.pants.projectview.ProjectFilesViewPane;
 import com.twitter.intellij.pants.service.PantsCompileOptionsExecutor;
@@ -255,7 +256,10 @@ public class PantsSystemProjectResolver implements ExternalSystemProjectResolver
     final ExternalSystemTaskNotificationListener listener,
     @NotNull DataNode<ProjectData> projectDataNode
   ) {
-    final PantsResolver dependenciesResolver = new PantsResolver(executor);
+    final Project project = id.findProject();
+    final PantsResolver dependenciesResolver = project == null
+                                               ? new PantsResolver(executor)
+                                               : new PantsResolver(executor, PantsProjectMetrics.getInstance(project));
     dependenciesResolver.resolve(
       status -> listener.onStatusChange(new ExternalSystemTaskNotificationEvent(id, status)),
       new ProcessAdapter() {
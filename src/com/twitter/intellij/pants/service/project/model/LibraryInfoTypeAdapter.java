@@ -0,0 +1,49 @@
+// Copyright 2016 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.service.project.model;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Map;
+
+public class LibraryInfoTypeAdapter extends TypeAdapter<LibraryInfo> {
+  public static LibraryInfoTypeAdapter INSTANCE = new LibraryInfoTypeAdapter();
+
+  @Override
+  public LibraryInfo read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    LibraryInfo result = new LibraryInfo();
+    in.beginObject();
+    while (in.hasNext()) {
+      final String classifier = in.nextName();
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        continue;
+      }
+      result.addJar(classifier, in.nextString());
+    }
+    in.endObject();
+    return result;
+  }
+
+  @Override
+  public void write(JsonWriter out, LibraryInfo value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    for (Map.Entry<String, String> jar : value.getContents().entrySet()) {
+      out.name(jar.getKey()).value(jar.getValue());
+    }
+    out.endObject();
+  }
+}
@@ -4,6 +4,7 @@
 package com.twitter.intellij.pants.service.project.model;
 
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
 import com.google.gson.annotations.SerializedName;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.util.text.StringUtil;
@@ -13,22 +14,43 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.TestOnly;
 
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 public class ProjectInfo {
   public static ProjectInfo fromJson(@NotNull String data) {
+    return fromJson(new StringReader(data));
+  }
+
+  /**
+   * Parses the output of `pants export` token by token, so neither the whole output
+   * nor its JSON tree has to be held in memory.
+   */
+  public static ProjectInfo fromJson(@NotNull Reader data) {
+    // only needed while parsing, the canonical instances stay referenced by the maps and sets
+    final Map<String, String> interned = new HashMap<>();
     final GsonBuilder builder = new GsonBuilder();
-    builder.registerTypeAdapter(TargetInfo.class, TargetInfoDeserializer.INSTANCE);
-    builder.registerTypeAdapter(LibraryInfo.class, LibraryInfoDeserializer.INSTANCE);
+    builder.registerTypeAdapter(TargetInfo.class, new TargetInfoTypeAdapter(interned));
+    builder.registerTypeAdapter(LibraryInfo.class, LibraryInfoTypeAdapter.INSTANCE);
     final ProjectInfo projectInfo = builder.create().fromJson(data, ProjectInfo.class);
-    projectInfo.initTargetAddresses();
+    if (projectInfo == null) {
+      throw new JsonSyntaxException("Empty project structure");
+    }
+    projectInfo.internLibraryIds(interned);
+    projectInfo.initTargetAddresses(interned);
 
     return projectInfo;
   }
@@ -37,11 +59,26 @@ public class ProjectInfo {
   public ProjectInfo() {
   }
 
+  ProjectInfo(@Nullable String version, @NotNull String[] availableTargetTypes, @Nullable PythonSetup pythonSetup) {
+    this.version = version;
+    this.availableTargetTypes = availableTargetTypes;
+    this.python_setup = pythonSetup;
+  }
+
   private final Logger LOG = Logger.getInstance(getClass());
   // id(org:name:version) to jars
   protected Map<String, LibraryInfo> libraries;
   // name to info
   protected Map<String, TargetInfo> targets;
+  // name to names of the targets depending on it, built on first use
+  private transient Map<String, Set<String>> myDependees;
+  // sorted views of the maps above, built on first use
+  private transient List<Map.Entry<String, LibraryInfo>> mySortedLibraries;
+  private transient List<Map.Entry<String, TargetInfo>> mySortedTargets;
+  // library id prefix to ids of the libraries starting with it, built on the first lookup of a missing library
+  private transient Map<String, List<String>> myLibraryIdsByPrefix;
+  // library ids that were looked up to the ids of the other versions used instead
+  private final transient Map<String, String> myLibrarySubstitutions = new ConcurrentHashMap<>();
 
   /* This might need to be expanded to show all properties that
    * a target type can contain like:
@@ -61,32 +98,41 @@ public class ProjectInfo {
   @Nullable
   protected PythonSetup python_setup = null;
 
-  private static <T> List<Map.Entry<String, T>> getSortedEntries(Map<String, T> map) {
-    return ContainerUtil.sorted(
-      map.entrySet(),
-      new Comparator<Map.Entry<String, T>>() {
-        @Override
-        public int compare(Map.Entry<String, T> o1, Map.Entry<String, T> o2) {
-          return StringUtil.naturalCompare(o1.getKey(), o2.getKey());
-        }
-      }
+  @NotNull
+  private static <T> List<Map.Entry<String, T>> getSortedEntries(@NotNull Map<String, T> map) {
+    return Collections.unmodifiableList(
+      ContainerUtil.sorted(map.entrySet(), (first, second) -> StringUtil.naturalCompare(first.getKey(), second.getKey()))
     );
   }
 
+  /**
+   * The list is computed once and reused until a library is added or removed.
+   */
   public List<Map.Entry<String, LibraryInfo>> getSortedLibraries() {
-    return getSortedEntries(getLibraries());
+    if (mySortedLibraries == null) {
+      mySortedLibraries = getSortedEntries(libraries);
+    }
+    return mySortedLibraries;
   }
 
   public Map<String, LibraryInfo> getLibraries() {
     return Collections.unmodifiableMap(libraries);
   }
 
-  public void setLibraries(Map<String, LibraryInfo> libraries) {
+  public synchronized void setLibraries(Map<String, LibraryInfo> libraries) {
     this.libraries = libraries;
+    mySortedLibraries = null;
+    myLibraryIdsByPrefix = null;
   }
 
+  /**
+   * The list is computed once and reused until a target is added, replaced or removed.
+   */
   public List<Map.Entry<String, TargetInfo>> getSortedTargets() {
-    return getSortedEntries(getTargets());
+    if (mySortedTargets == null) {
+      mySortedTargets = getSortedEntries(targets);
+    }
+    return mySortedTargets;
   }
 
   public Map<String, TargetInfo> getTargets() {
@@ -95,6 +141,8 @@ public class ProjectInfo {
 
   public void setTargets(Map<String, TargetInfo> targets) {
     this.targets = targets;
+    myDependees = null;
+    mySortedTargets = null;
   }
 
   @NotNull
@@ -107,37 +155,104 @@ public class ProjectInfo {
     return python_setup;
   }
 
+  /**
+   * Falls back to any other version of the library if there are no jars for {@code libraryId} itself.
+   * Substitutions are collected and reported by {@link #logLibrarySubstitutions()}.
+   */
   @Nullable
   public LibraryInfo getLibraries(@NotNull String libraryId) {
-    if (libraries.containsKey(libraryId) && libraries.get(libraryId).getDefault() != null) {
-      return libraries.get(libraryId);
+    final LibraryInfo exactInfo = libraries.get(libraryId);
+    if (exactInfo != null && exactInfo.getDefault() != null) {
+      return exactInfo;
     }
     int versionIndex = libraryId.lastIndexOf(':');
     if (versionIndex == -1) {
       return null;
     }
-    final String libraryName = libraryId.substring(0, versionIndex);
-    for (Map.Entry<String, LibraryInfo> libIdAndJars : libraries.entrySet()) {
-      final String currentLibraryId = libIdAndJars.getKey();
-      if (!StringUtil.startsWith(currentLibraryId, libraryName + ":")) {
-        continue;
-      }
-      final LibraryInfo currentInfo = libIdAndJars.getValue();
-      if (currentInfo != null) {
-        LOG.info("Using " + currentLibraryId + " instead of " + libraryId);
-        return currentInfo;
+    final List<String> candidateIds = getLibraryIdsByPrefix().get(libraryId.substring(0, versionIndex));
+    if (candidateIds == null) {
+      return null;
+    }
+    for (String candidateId : candidateIds) {
+      final LibraryInfo candidateInfo = libraries.get(candidateId);
+      if (candidateInfo != null) {
+        if (!candidateId.equals(libraryId)) {
+          myLibrarySubstitutions.put(libraryId, candidateId);
+        }
+        return candidateInfo;
       }
     }
     return null;
   }
 
+  public void logLibrarySubstitutions() {
+    if (myLibrarySubstitutions.isEmpty()) {
+      return;
+    }
+    final List<String> substitutions = new ArrayList<>();
+    for (Map.Entry<String, String> substitution : new TreeMap<>(myLibrarySubstitutions).entrySet()) {
+      substitutions.add(substitution.getValue() + " instead of " + substitution.getKey());
+    }
+    LOG.info(String.format("Using other versions of %s libraries: %s", substitutions.size(), StringUtil.join(substitutions, ", ")));
+    myLibrarySubstitutions.clear();
+  }
+
+  /**
+   * Library ids grouped by each of their prefixes up to a colon, e.g. `org` and `org:name` for `org:name:1.0`.
+   * Resolver extensions may look up libraries from several threads, hence the synchronization.
+   */
+  @NotNull
+  private synchronized Map<String, List<String>> getLibraryIdsByPrefix() {
+    if (myLibraryIdsByPrefix == null) {
+      final Map<String, List<String>> libraryIdsByPrefix = new HashMap<>();
+      for (String libraryId : libraries.keySet()) {
+        for (int i = libraryId.indexOf(':'); i >= 0; i = libraryId.indexOf(':', i + 1)) {
+          libraryIdsByPrefix.computeIfAbsent(libraryId.substring(0, i), prefix -> new ArrayList<>()).add(libraryId);
+        }
+      }
+      myLibraryIdsByPrefix = libraryIdsByPrefix;
+    }
+    return myLibraryIdsByPrefix;
+  }
+
   @Nullable
   public TargetInfo getTarget(String targetName) {
     return targets.get(targetName);
   }
 
+  /**
+   * Dependencies of a target that is already part of the project have to be changed through this class,
+   * so that the dependees index stays in sync.
+   */
   public void addTarget(String targetName, TargetInfo info) {
-    targets.put(targetName, info);
+    final TargetInfo previousInfo = targets.put(targetName, info);
+    mySortedTargets = null;
+    if (myDependees != null) {
+      if (previousInfo != null) {
+        unindexDependencies(targetName, previousInfo);
+      }
+      indexDependencies(targetName, info);
+    }
+  }
+
+  public void addDependency(@NotNull String targetName, @NotNull String dependencyTargetName) {
+    final TargetInfo targetInfo = targets.get(targetName);
+    if (targetInfo == null) {
+      return;
+    }
+    targetInfo.addDependency(dependencyTargetName);
+    if (myDependees != null) {
+      getOrCreateDependees(dependencyTargetName).add(targetName);
+    }
+  }
+
+  /**
+   * @return names of the targets that depend on {@code targetName}.
+   */
+  @NotNull
+  public Set<String> getDependees(@NotNull String targetName) {
+    final Set<String> dependees = getDependeesIndex().get(targetName);
+    return dependees != null ? Collections.unmodifiableSet(dependees) : Collections.emptySet();
   }
 
   public void removeTargets(Collection<String> targetNames) {
@@ -153,26 +268,102 @@ public class ProjectInfo {
   }
 
   public void removeTarget(String targetName) {
-    targets.remove(targetName);
-    for (TargetInfo targetInfo : targets.values()) {
-      targetInfo.getTargets().remove(targetName);
+    final Map<String, Set<String>> dependeesIndex = getDependeesIndex();
+    final TargetInfo removedInfo = targets.remove(targetName);
+    if (removedInfo != null) {
+      mySortedTargets = null;
+      unindexDependencies(targetName, removedInfo);
+    }
+    final Set<String> dependees = dependeesIndex.remove(targetName);
+    if (dependees != null) {
+      for (String dependee : dependees) {
+        final TargetInfo dependeeInfo = targets.get(dependee);
+        if (dependeeInfo != null) {
+          dependeeInfo.removeDependency(targetName);
+        }
+      }
     }
   }
 
   public void replaceDependency(String targetName, String newTargetName) {
-    for (TargetInfo targetInfo : targets.values()) {
-      targetInfo.replaceDependency(targetName, newTargetName);
+    final Set<String> dependees = getDependeesIndex().remove(targetName);
+    if (dependees == null) {
+      return;
+    }
+    for (String dependee : dependees) {
+      final TargetInfo dependeeInfo = targets.get(dependee);
+      if (dependeeInfo != null) {
+        dependeeInfo.replaceDependency(targetName, newTargetName);
+      }
+    }
+    getOrCreateDependees(newTargetName).addAll(dependees);
+  }
+
+  /**
+   * Removes all keys of {@code replacements} and points their dependees to the corresponding values.
+   * The replacement targets have to be added beforehand.
+   */
+  public void replaceTargets(@NotNull Map<String, String> replacements) {
+    for (Map.Entry<String, String> replacement : replacements.entrySet()) {
+      replaceDependency(replacement.getKey(), replacement.getValue());
     }
+    removeTargets(replacements.keySet());
   }
 
-  private void initTargetAddresses() {
+  @NotNull
+  private Map<String, Set<String>> getDependeesIndex() {
+    if (myDependees == null) {
+      myDependees = new HashMap<>(targets.size() * 4 / 3 + 1);
+      for (Map.Entry<String, TargetInfo> entry : targets.entrySet()) {
+        indexDependencies(entry.getKey(), entry.getValue());
+      }
+    }
+    return myDependees;
+  }
+
+  @NotNull
+  private Set<String> getOrCreateDependees(@NotNull String targetName) {
+    return getDependeesIndex().computeIfAbsent(targetName, name -> new HashSet<>());
+  }
+
+  private void indexDependencies(@NotNull String targetName, @NotNull TargetInfo info) {
+    for (String dependency : info.getTargets()) {
+      getOrCreateDependees(dependency).add(targetName);
+    }
+  }
+
+  private void unindexDependencies(@NotNull String targetName, @NotNull TargetInfo info) {
+    for (String dependency : info.getTargets()) {
+      final Set<String> dependees = myDependees.get(dependency);
+      if (dependees != null) {
+        dependees.remove(targetName);
+      }
+    }
+  }
+
+  private void initTargetAddresses(@NotNull Map<String, String> interned) {
+    // Rebuild the map so that its keys are the same instances the dependency sets refer to.
+    final Map<String, TargetInfo> internedTargets = new LinkedHashMap<>(targets.size() * 4 / 3 + 1);
     for (Map.Entry<String, TargetInfo> entry : targets.entrySet()) {
       final TargetInfo info = entry.getValue();
-      final String address = entry.getKey();
+      final String address = interned.computeIfAbsent(entry.getKey(), Function.identity());
       for (TargetAddressInfo addressInfo : info.getAddressInfos()) {
         addressInfo.setTargetAddress(address);
       }
+      internedTargets.put(address, info);
+    }
+    setTargets(internedTargets);
+  }
+
+  private void internLibraryIds(@NotNull Map<String, String> interned) {
+    if (libraries == null) {
+      return;
+    }
+    final Map<String, LibraryInfo> internedLibraries = new LinkedHashMap<>(libraries.size() * 4 / 3 + 1);
+    for (Map.Entry<String, LibraryInfo> entry : libraries.entrySet()) {
+      internedLibraries.put(interned.computeIfAbsent(entry.getKey(), Function.identity()), entry.getValue());
     }
+    setLibraries(internedLibraries);
   }
 
   /**
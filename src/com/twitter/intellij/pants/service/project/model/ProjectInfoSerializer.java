@@ -0,0 +1,232 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.service.project.model;
+
+import com.twitter.intellij.pants.model.TargetAddressInfo;
+import com.twitter.intellij.pants.util.PantsUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact binary form of a freshly parsed {@link ProjectInfo}.
+ *
+ * All addresses and library ids are written once up front, targets then refer to them by their dense id.
+ * The small per-target address info is kept as JSON, since it mirrors the export format field by field.
+ */
+public class ProjectInfoSerializer {
+  /**
+   * Bump this version whenever the layout below or the model classes change.
+   */
+  public static final int FORMAT_VERSION = 1;
+
+  /**
+   * The addresses and library ids of one write or read, each with a dense id.
+   */
+  private static final class SymbolTable {
+    private final Map<String, Integer> myIds = new HashMap<>();
+    private final List<String> mySymbols = new ArrayList<>();
+
+    private void add(@NotNull String symbol) {
+      if (!myIds.containsKey(symbol)) {
+        myIds.put(symbol, mySymbols.size());
+        mySymbols.add(symbol);
+      }
+    }
+
+    private int idOf(@NotNull String symbol) {
+      final Integer id = myIds.get(symbol);
+      if (id == null) {
+        throw new IllegalStateException("No id for " + symbol);
+      }
+      return id;
+    }
+
+    @NotNull
+    private String symbolOf(int id) {
+      return mySymbols.get(id);
+    }
+
+    private int size() {
+      return mySymbols.size();
+    }
+  }
+
+  public static void write(@NotNull ProjectInfo projectInfo, @NotNull DataOutput out) throws IOException {
+    final SymbolTable symbols = new SymbolTable();
+    for (Map.Entry<String, LibraryInfo> entry : projectInfo.libraries.entrySet()) {
+      symbols.add(entry.getKey());
+    }
+    for (Map.Entry<String, TargetInfo> entry : projectInfo.targets.entrySet()) {
+      symbols.add(entry.getKey());
+      final TargetInfo info = entry.getValue();
+      info.getTargets().forEach(symbols::add);
+      info.getLibraries().forEach(symbols::add);
+      info.getExcludes().forEach(symbols::add);
+    }
+
+    out.writeInt(FORMAT_VERSION);
+    writeString(out, projectInfo.version);
+    out.writeInt(projectInfo.availableTargetTypes.length);
+    for (String targetType : projectInfo.availableTargetTypes) {
+      writeString(out, targetType);
+    }
+    writeString(out, projectInfo.python_setup != null ? PantsUtil.gson.toJson(projectInfo.python_setup) : null);
+
+    out.writeInt(symbols.size());
+    for (int id = 0; id < symbols.size(); id++) {
+      writeString(out, symbols.symbolOf(id));
+    }
+
+    out.writeInt(projectInfo.libraries.size());
+    for (Map.Entry<String, LibraryInfo> entry : projectInfo.libraries.entrySet()) {
+      out.writeInt(symbols.idOf(entry.getKey()));
+      final Map<String, String> jars = entry.getValue().getContents();
+      out.writeInt(jars.size());
+      for (Map.Entry<String, String> jar : jars.entrySet()) {
+        writeString(out, jar.getKey());
+        writeString(out, jar.getValue());
+      }
+    }
+
+    out.writeInt(projectInfo.targets.size());
+    for (Map.Entry<String, TargetInfo> entry : projectInfo.targets.entrySet()) {
+      out.writeInt(symbols.idOf(entry.getKey()));
+      final TargetInfo info = entry.getValue();
+      out.writeInt(info.getAddressInfos().size());
+      for (TargetAddressInfo addressInfo : info.getAddressInfos()) {
+        writeString(out, PantsUtil.gson.toJson(addressInfo));
+      }
+      writeSymbols(out, symbols, info.getTargets());
+      writeSymbols(out, symbols, info.getLibraries());
+      writeSymbols(out, symbols, info.getExcludes());
+      out.writeInt(info.getRoots().size());
+      for (ContentRoot root : info.getRoots()) {
+        writeString(out, root.getRawSourceRoot());
+        writeString(out, root.getPackagePrefix());
+      }
+    }
+  }
+
+  /**
+   * @return null if the data was written in a different format version.
+   */
+  @Nullable
+  public static ProjectInfo read(@NotNull DataInput in) throws IOException {
+    if (in.readInt() != FORMAT_VERSION) {
+      return null;
+    }
+    final String version = readString(in);
+    final String[] availableTargetTypes = new String[in.readInt()];
+    for (int i = 0; i < availableTargetTypes.length; i++) {
+      availableTargetTypes[i] = readString(in);
+    }
+    final String pythonSetup = readString(in);
+    final ProjectInfo projectInfo = new ProjectInfo(
+      version,
+      availableTargetTypes,
+      pythonSetup != null ? PantsUtil.gson.fromJson(pythonSetup, PythonSetup.class) : null
+    );
+
+    final SymbolTable symbols = new SymbolTable();
+    final int symbolCount = in.readInt();
+    for (int id = 0; id < symbolCount; id++) {
+      symbols.add(readString(in));
+    }
+
+    final int libraryCount = in.readInt();
+    final Map<String, LibraryInfo> libraries = new LinkedHashMap<>(libraryCount * 4 / 3 + 1);
+    for (int i = 0; i < libraryCount; i++) {
+      final String libraryId = symbols.symbolOf(in.readInt());
+      final LibraryInfo libraryInfo = new LibraryInfo();
+      final int jarCount = in.readInt();
+      for (int j = 0; j < jarCount; j++) {
+        libraryInfo.addJar(readString(in), readString(in));
+      }
+      libraries.put(libraryId, libraryInfo);
+    }
+    projectInfo.libraries = libraries;
+
+    final int targetCount = in.readInt();
+    final Map<String, TargetInfo> targets = new LinkedHashMap<>(targetCount * 4 / 3 + 1);
+    for (int i = 0; i < targetCount; i++) {
+      final String address = symbols.symbolOf(in.readInt());
+      final int addressInfoCount = in.readInt();
+      final Set<TargetAddressInfo> addressInfos = new HashSet<>();
+      for (int j = 0; j < addressInfoCount; j++) {
+        final TargetAddressInfo addressInfo = PantsUtil.gson.fromJson(readString(in), TargetAddressInfo.class);
+        addressInfo.setTargetAddress(address);
+        addressInfos.add(addressInfo);
+      }
+      final Set<String> dependencies = readSymbols(in, symbols);
+      final Set<String> targetLibraries = readSymbols(in, symbols);
+      final Set<String> excludes = readSymbols(in, symbols);
+      final int rootCount = in.readInt();
+      final Set<ContentRoot> roots = new HashSet<>();
+      for (int j = 0; j < rootCount; j++) {
+        final String sourceRoot = readString(in);
+        final String packagePrefix = readString(in);
+        roots.add(new ContentRoot(sourceRoot, packagePrefix != null ? packagePrefix : ""));
+      }
+      targets.put(address, new TargetInfo(addressInfos, dependencies, targetLibraries, excludes, roots));
+    }
+    projectInfo.targets = targets;
+    return projectInfo;
+  }
+
+  private static void writeSymbols(
+    @NotNull DataOutput out,
+    @NotNull SymbolTable symbols,
+    @NotNull Collection<String> values
+  ) throws IOException {
+    out.writeInt(values.size());
+    for (String value : values) {
+      out.writeInt(symbols.idOf(value));
+    }
+  }
+
+  @NotNull
+  private static Set<String> readSymbols(@NotNull DataInput in, @NotNull SymbolTable symbols) throws IOException {
+    final int size = in.readInt();
+    final Set<String> result = new HashSet<>();
+    for (int i = 0; i < size; i++) {
+      result.add(symbols.symbolOf(in.readInt()));
+    }
+    return result;
+  }
+
+  // DataOutput#writeUTF is limited to 64K, which long glob lists can exceed.
+  private static void writeString(@NotNull DataOutput out, @Nullable String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  @Nullable
+  private static String readString(@NotNull DataInput in) throws IOException {
+    final int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    final byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
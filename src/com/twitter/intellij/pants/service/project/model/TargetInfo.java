@@ -192,13 +192,34 @@ public class TargetInfo {
   }
 
   public TargetInfo union(@NotNull TargetInfo other) {
-    return new TargetInfo(
-      ContainerUtil.union(getAddressInfos(), other.getAddressInfos()),
-      ContainerUtil.union(getTargets(), other.getTargets()),
-      ContainerUtil.union(getLibraries(), other.getLibraries()),
-      ContainerUtil.union(getExcludes(), other.getExcludes()),
-      ContainerUtil.union(getRoots(), other.getRoots())
-    );
+    return new UnionBuilder().add(this).add(other).build();
+  }
+
+  /**
+   * Unites any number of targets in one pass. Chaining {@link #union} calls instead
+   * copies everything collected so far for every target added.
+   */
+  public static class UnionBuilder {
+    private final Set<TargetAddressInfo> myAddressInfos = new HashSet<>();
+    private final Set<String> myTargets = new HashSet<>();
+    private final Set<String> myLibraries = new HashSet<>();
+    private final Set<String> myExcludes = new HashSet<>();
+    private final Set<ContentRoot> myRoots = new HashSet<>();
+
+    @NotNull
+    public UnionBuilder add(@NotNull TargetInfo info) {
+      myAddressInfos.addAll(info.getAddressInfos());
+      myTargets.addAll(info.getTargets());
+      myLibraries.addAll(info.getLibraries());
+      myExcludes.addAll(info.getExcludes());
+      myRoots.addAll(info.getRoots());
+      return this;
+    }
+
+    @NotNull
+    public TargetInfo build() {
+      return new TargetInfo(myAddressInfos, myTargets, myLibraries, myExcludes, myRoots);
+    }
   }
 
   @Override
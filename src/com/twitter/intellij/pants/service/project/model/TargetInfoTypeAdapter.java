@@ -0,0 +1,159 @@
+// Copyright 2015 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.service.project.model;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.twitter.intellij.pants.model.TargetAddressInfo;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Reads a target entry of `pants export` straight from the token stream.
+ * Only the handful of scalar fields that make up {@link TargetAddressInfo} are collected into a tree,
+ * the (potentially large) dependency, library and root lists never are.
+ */
+public class TargetInfoTypeAdapter extends TypeAdapter<TargetInfo> {
+  private static final Gson GSON = new Gson();
+  private static final TypeAdapter<ContentRoot> CONTENT_ROOT_ADAPTER = GSON.getAdapter(ContentRoot.class);
+  private static final TypeAdapter<TargetAddressInfo> ADDRESS_INFO_ADAPTER = GSON.getAdapter(TargetAddressInfo.class);
+  private static final TypeAdapter<JsonElement> ELEMENT_ADAPTER = GSON.getAdapter(JsonElement.class);
+
+  // string to its canonical instance, shared by all targets read with this adapter
+  private final Map<String, String> myInterned;
+
+  public TargetInfoTypeAdapter(@NotNull Map<String, String> interned) {
+    myInterned = interned;
+  }
+
+  @Override
+  public TargetInfo read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    final Set<String> targets = new HashSet<>();
+    final Set<String> libraries = new HashSet<>();
+    final Set<String> excludes = new HashSet<>();
+    final Set<ContentRoot> contentRoots = new HashSet<>();
+    final JsonObject addressFields = new JsonObject();
+
+    in.beginObject();
+    while (in.hasNext()) {
+      final String name = in.nextName();
+      switch (name) {
+        case "targets":
+          readInterned(in, targets);
+          break;
+        case "libraries":
+          readInterned(in, libraries);
+          break;
+        case "excludes":
+          readInterned(in, excludes);
+          break;
+        case "roots":
+          readContentRoots(in, contentRoots);
+          break;
+        default:
+          addressFields.add(name, ELEMENT_ADAPTER.read(in));
+      }
+    }
+    in.endObject();
+
+    final TargetAddressInfo addressInfo = ADDRESS_INFO_ADAPTER.fromJsonTree(addressFields);
+    return new TargetInfo(
+      new HashSet<>(Collections.singleton(addressInfo)),
+      targets,
+      libraries,
+      excludes,
+      contentRoots
+    );
+  }
+
+  /**
+   * Writes the target in the format of `pants export`. A target merged from several addresses,
+   * e.g. by source root compression, can't be expressed in it, so only the fields of its first address are kept.
+   */
+  @Override
+  public void write(JsonWriter out, TargetInfo value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    final Iterator<TargetAddressInfo> addressInfos = value.getAddressInfos().iterator();
+    if (addressInfos.hasNext()) {
+      final JsonObject addressFields = ADDRESS_INFO_ADAPTER.toJsonTree(addressInfos.next()).getAsJsonObject();
+      for (Map.Entry<String, JsonElement> field : addressFields.entrySet()) {
+        out.name(field.getKey());
+        ELEMENT_ADAPTER.write(out, field.getValue());
+      }
+    }
+    writeStrings(out.name("targets"), value.getTargets());
+    writeStrings(out.name("libraries"), value.getLibraries());
+    writeStrings(out.name("excludes"), value.getExcludes());
+    out.name("roots").beginArray();
+    for (ContentRoot root : value.getRoots()) {
+      CONTENT_ROOT_ADAPTER.write(out, root);
+    }
+    out.endArray();
+    out.endObject();
+  }
+
+  private static void writeStrings(@NotNull JsonWriter out, @NotNull Collection<String> values) throws IOException {
+    out.beginArray();
+    for (String value : values) {
+      out.value(value);
+    }
+    out.endArray();
+  }
+
+  /**
+   * Adds the canonical instance of every string of the array, so that an address or library id
+   * referred to by many targets is held only once.
+   */
+  private void readInterned(@NotNull JsonReader in, @NotNull Collection<String> result) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return;
+    }
+    in.beginArray();
+    while (in.hasNext()) {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        continue;
+      }
+      result.add(myInterned.computeIfAbsent(in.nextString(), Function.identity()));
+    }
+    in.endArray();
+  }
+
+  private static void readContentRoots(@NotNull JsonReader in, @NotNull Collection<ContentRoot> result) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return;
+    }
+    in.beginArray();
+    while (in.hasNext()) {
+      final ContentRoot root = CONTENT_ROOT_ADAPTER.read(in);
+      if (root != null) {
+        result.add(root);
+      }
+    }
+    in.endArray();
+  }
+}
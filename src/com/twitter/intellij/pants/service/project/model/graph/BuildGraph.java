@@ -4,16 +4,15 @@
 package com.twitter.intellij.pants.service.project.model.graph;
 
 
-import com.google.common.collect.Queues;
-import com.google.common.collect.Sets;
 import com.intellij.openapi.diagnostic.Logger;
 import com.twitter.intellij.pants.PantsException;
 import com.twitter.intellij.pants.service.project.model.TargetInfo;
 
 import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -23,7 +22,14 @@ public class BuildGraph {
     "No target roots found in build graph. Please make sure Pants export version >= 1.0.9";
 
   private static Logger logger = Logger.getInstance("#" + BuildGraph.class.getName());
-  private Set<BuildGraphNode> allNodes = new HashSet<>();
+  // address to node index, so that wiring up the graph is linear in targets plus edges.
+  private final Map<String, BuildGraphNode> allNodes;
+
+  // Filled in by annotateLevels() on first query.
+  private Map<BuildGraphNode, Integer> myDepths = null;
+  private Map<BuildGraphNode, Integer> myImportLevels = null;
+  private Set<BuildGraphNode> myOrphanedNodes = null;
+  private int myMaxDepth = 0;
 
   public class OrphanedNodeException extends PantsException {
 
@@ -40,23 +46,19 @@ public class BuildGraph {
   }
 
   public BuildGraph(Map<String, TargetInfo> targets) {
-    allNodes.addAll(
-      targets
-        .entrySet()
-        .stream()
-        .map(BuildGraphNode::new)
-        .collect(Collectors.toList())
-    );
+    allNodes = new HashMap<>(targets.size() * 4 / 3 + 1);
+    for (Map.Entry<String, TargetInfo> entry : targets.entrySet()) {
+      allNodes.put(entry.getKey(), new BuildGraphNode(entry));
+    }
 
     // then process their relationships, dependencies and dependees
-    for (BuildGraphNode node : allNodes) {
+    for (BuildGraphNode node : allNodes.values()) {
       Set<String> deps = node.getTargetInfo().getTargets();
       for (String dep : deps) {
-        // FIXME: getNode is currently linear search.
-        Optional<BuildGraphNode> depNode = getNode(dep);
-        if (depNode.isPresent()) {
-          node.addDependency(depNode.get());
-          depNode.get().addDepeedee(node);
+        BuildGraphNode depNode = allNodes.get(dep);
+        if (depNode != null) {
+          node.addDependency(depNode);
+          depNode.addDepeedee(node);
         }
         else {
           logger.error(String.format("No build graph node found for %s", dep));
@@ -65,81 +67,109 @@ public class BuildGraph {
     }
   }
 
-  // FIXME: not the most efficient way to find max depth yet.
   public int getMaxDepth() {
-    int depth = 0;
-    Set<BuildGraphNode> currentNodeSet = getTargetRoots();
-
-    while (true) {
-      Set<BuildGraphNode> dependencyNodes = currentNodeSet.stream()
-        .map(BuildGraphNode::getDependencies)
-        .flatMap(Set::stream)
-        .collect(Collectors.toSet());
-
-      int sizeBeforeAdd = currentNodeSet.size();
-      currentNodeSet.addAll(dependencyNodes);
-      if (currentNodeSet.size() == sizeBeforeAdd) {
-        if (currentNodeSet.size() == allNodes.size()) {
-          return depth;
-        }
-        else {
-          Set<BuildGraphNode> orphanNodes = Sets.difference(allNodes, currentNodeSet);
-          throw new OrphanedNodeException(String.format(ERROR_ORPHANED_NODE, orphanNodes));
-        }
-      }
-      depth++;
+    annotateLevels();
+    if (!myOrphanedNodes.isEmpty()) {
+      throw new OrphanedNodeException(String.format(ERROR_ORPHANED_NODE, myOrphanedNodes));
     }
+    return myMaxDepth;
   }
 
-  private Set<BuildGraphNode> expandAliasTargets(Set<BuildGraphNode> initialTargets) {
-    Set<BuildGraphNode> results = Sets.newHashSet();
-    ArrayDeque<BuildGraphNode> q = Queues.newArrayDeque(initialTargets);
-    while (!q.isEmpty()) {
-      BuildGraphNode curr = q.pop();
-      if (curr.isAliasTarget()) {
-        q.addAll(curr.getDependencies());
-      }
-      else {
-        results.add(curr);
-      }
-    }
-    return results;
+  /**
+   * @return nodes that cannot be reached from any target root.
+   */
+  public Set<BuildGraphNode> getOrphanedNodes() {
+    annotateLevels();
+    return Collections.unmodifiableSet(myOrphanedNodes);
   }
 
   // level 0 - target roots
   // level 1 - target roots + direct deps
   // ...
+  // Dependencies of alias targets are pulled in on the same level as the alias itself.
   public Set<BuildGraphNode> getNodesUpToLevel(int level) {
-    // Holds the current scope of build graph.
-    Set<BuildGraphNode> results = getTargetRoots();
-    results.addAll(expandAliasTargets(results));
-
-    for (int i = 0; i < level; i++) {
-      Set<BuildGraphNode> dependencies = new HashSet<>();
-      for (BuildGraphNode node : results) {
-        dependencies.addAll(node.getDependencies());
-      }
-      results.addAll(dependencies);
-      results.addAll(expandAliasTargets(dependencies));
-      // All nodes are in, no need to iterate more.
-      if (results.size() == allNodes.size()) {
-        break;
+    annotateLevels();
+    Set<BuildGraphNode> results = new HashSet<>();
+    for (Map.Entry<BuildGraphNode, Integer> entry : myImportLevels.entrySet()) {
+      if (entry.getValue() <= level) {
+        results.add(entry.getKey());
       }
     }
     return results;
   }
 
+  /**
+   * Annotates every node reachable from the target roots with
+   * - its depth: the plain BFS distance along dependency edges, and
+   * - its import level: the same distance, except that following an alias target to its dependencies is free.
+   * The graph is immutable once built, so this runs at most once per graph in O(V+E).
+   */
+  private void annotateLevels() {
+    if (myDepths != null) {
+      return;
+    }
+    final Set<BuildGraphNode> targetRoots = getTargetRoots();
+
+    final Map<BuildGraphNode, Integer> depths = new HashMap<>(allNodes.size() * 4 / 3 + 1);
+    final ArrayDeque<BuildGraphNode> queue = new ArrayDeque<>(targetRoots);
+    for (BuildGraphNode root : targetRoots) {
+      depths.put(root, 0);
+    }
+    int maxDepth = 0;
+    while (!queue.isEmpty()) {
+      final BuildGraphNode node = queue.poll();
+      final int depth = depths.get(node);
+      maxDepth = Math.max(maxDepth, depth);
+      for (BuildGraphNode dep : node.getDependencies()) {
+        if (!depths.containsKey(dep)) {
+          depths.put(dep, depth + 1);
+          queue.add(dep);
+        }
+      }
+    }
+
+    // 0-1 BFS: alias edges weigh 0 and go to the front of the deque, all other edges weigh 1.
+    final Map<BuildGraphNode, Integer> importLevels = new HashMap<>(depths.size() * 4 / 3 + 1);
+    final ArrayDeque<BuildGraphNode> deque = new ArrayDeque<>(targetRoots);
+    for (BuildGraphNode root : targetRoots) {
+      importLevels.put(root, 0);
+    }
+    while (!deque.isEmpty()) {
+      final BuildGraphNode node = deque.pollFirst();
+      final boolean isAlias = node.isAliasTarget();
+      final int candidate = importLevels.get(node) + (isAlias ? 0 : 1);
+      for (BuildGraphNode dep : node.getDependencies()) {
+        final Integer current = importLevels.get(dep);
+        if (current == null || candidate < current) {
+          importLevels.put(dep, candidate);
+          if (isAlias) {
+            deque.addFirst(dep);
+          }
+          else {
+            deque.addLast(dep);
+          }
+        }
+      }
+    }
+
+    final Set<BuildGraphNode> orphanedNodes = new HashSet<>();
+    for (BuildGraphNode node : allNodes.values()) {
+      if (!depths.containsKey(node)) {
+        orphanedNodes.add(node);
+      }
+    }
+
+    myMaxDepth = maxDepth;
+    myImportLevels = importLevels;
+    myOrphanedNodes = orphanedNodes;
+    myDepths = depths;
+  }
+
   private Set<BuildGraphNode> getTargetRoots() {
-    Set<BuildGraphNode> targetRoots = allNodes.stream().filter(BuildGraphNode::isTargetRoot).collect(Collectors.toSet());
+    Set<BuildGraphNode> targetRoots = allNodes.values().stream().filter(BuildGraphNode::isTargetRoot).collect(Collectors.toSet());
     if (targetRoots.isEmpty()) {
       throw new NoTargetRootException(ERROR_NO_TARGET_ROOT);
     }
     return targetRoots;
   }
-
-  private Optional<BuildGraphNode> getNode(String targetAddress) {
-    return allNodes.stream()
-      .filter(n -> n.getAddress().equals(targetAddress))
-      .findFirst();
-  }
 }
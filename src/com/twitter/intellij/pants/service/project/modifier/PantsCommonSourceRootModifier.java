@@ -4,7 +4,6 @@
 package com.twitter.intellij.pants.service.project.modifier;
 
 import com.intellij.openapi.diagnostic.Logger;
-import com.intellij.openapi.util.Factory;
 import com.intellij.openapi.util.Pair;
 import com.intellij.util.containers.ContainerUtil;
 import com.twitter.intellij.pants.service.PantsCompileOptionsExecutor;
@@ -17,7 +16,6 @@ import org.jetbrains.annotations.NotNull;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -54,24 +52,20 @@ public class PantsCommonSourceRootModifier implements PantsProjectInfoModifierEx
       projectInfo.addTarget(commonTargetNameAndInfo.getFirst(), commonTargetNameAndInfo.getSecond());
       for (Pair<String, TargetInfo> nameAndInfo : targetNameAndInfos) {
         nameAndInfo.getSecond().getRoots().remove(commonContentRoot);
-        nameAndInfo.getSecond().addDependency(commonTargetNameAndInfo.getFirst());
+        projectInfo.addDependency(nameAndInfo.getFirst(), commonTargetNameAndInfo.getFirst());
       }
     }
   }
 
   @NotNull
   public Map<ContentRoot, List<Pair<String, TargetInfo>>> getSourceRoot2TargetMapping(@NotNull ProjectInfo projectInfo) {
-    final Factory<List<Pair<String, TargetInfo>>> listFactory = ArrayList::new;
-    final Map<ContentRoot, List<Pair<String, TargetInfo>>> result = new HashMap<>();
+    // most targets own a single root, so there are about as many roots as targets
+    final Map<ContentRoot, List<Pair<String, TargetInfo>>> result = new HashMap<>(projectInfo.getTargets().size() * 4 / 3 + 1);
     for (Map.Entry<String, TargetInfo> entry : projectInfo.getTargets().entrySet()) {
       final String targetName = entry.getKey();
       final TargetInfo targetInfo = entry.getValue();
       for (ContentRoot contentRoot : targetInfo.getRoots()) {
-        ContainerUtil.getOrCreate(
-          result,
-          contentRoot,
-          listFactory
-        ).add(Pair.create(targetName, targetInfo));
+        result.computeIfAbsent(contentRoot, root -> new ArrayList<>(1)).add(Pair.create(targetName, targetInfo));
       }
     }
     return result;
@@ -100,11 +94,11 @@ public class PantsCommonSourceRootModifier implements PantsProjectInfoModifierEx
     @NotNull List<Pair<String, TargetInfo>> targetNameAndInfos,
     @NotNull ContentRoot originalContentRoot
   ) {
-    final Iterator<Pair<String, TargetInfo>> iterator = targetNameAndInfos.iterator();
-    TargetInfo commonInfo = iterator.next().getSecond();
-    while (iterator.hasNext()) {
-      commonInfo = commonInfo.union(iterator.next().getSecond());
+    final TargetInfo.UnionBuilder commonInfoBuilder = new TargetInfo.UnionBuilder();
+    for (Pair<String, TargetInfo> nameAndInfo : targetNameAndInfos) {
+      commonInfoBuilder.add(nameAndInfo.getSecond());
     }
+    final TargetInfo commonInfo = commonInfoBuilder.build();
     // make sure we won't have cyclic deps
     commonInfo.getTargets().removeAll(targetNameAndInfos.stream().map(s -> s.getFirst()).collect(Collectors.toSet()));
 
@@ -5,6 +5,7 @@ package com.twitter.intellij.pants.service.project.modifier;
 
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.ArrayUtil;
 import com.intellij.util.Function;
 import com.intellij.util.containers.ContainerUtil;
 import com.twitter.intellij.pants.PantsException;
@@ -14,46 +15,119 @@ import com.twitter.intellij.pants.service.project.model.ProjectInfo;
 import com.twitter.intellij.pants.service.project.model.TargetInfo;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
+/**
+ * Merges every group of targets that depend on each other, directly or transitively, into a single target.
+ */
 public class PantsCyclicDependenciesModifier implements PantsProjectInfoModifierExtension {
   @Override
   public void modify(@NotNull ProjectInfo projectInfo, @NotNull PantsCompileOptionsExecutor executor, @NotNull Logger log) {
-    final Set<Map.Entry<String, TargetInfo>> originalEntries =
-      new HashSet<>(projectInfo.getTargets().entrySet());
-    for (Map.Entry<String, TargetInfo> nameAndInfo : originalEntries) {
-      final String targetName = nameAndInfo.getKey();
-      final TargetInfo targetInfo = nameAndInfo.getValue();
-      if (!projectInfo.getTargets().containsKey(targetName)) {
-        // already removed
-        continue;
+    for (Map.Entry<String, TargetInfo> nameAndInfo : projectInfo.getTargets().entrySet()) {
+      if (nameAndInfo.getValue().dependOn(nameAndInfo.getKey())) {
+        throw new PantsException(String.format("Self cyclic dependency found %s", nameAndInfo.getKey()));
       }
-      for (String dependencyTargetName : targetInfo.getTargets()) {
-        TargetInfo dependencyTargetInfo = projectInfo.getTarget(dependencyTargetName);
-        if (dependencyTargetInfo != null && dependencyTargetInfo.dependOn(targetName)) {
+    }
 
-          if (targetName.equals(dependencyTargetName)) {
-            throw new PantsException(String.format("Self cyclic dependency found %s", targetName));
-          }
+    final Map<String, String> replacements = new HashMap<>();
+    for (List<String> component : findCycles(projectInfo.getTargets())) {
+      log.info(String.format("Found cyclic dependency between %s", StringUtil.join(component, ", ")));
+
+      final String combinedTargetName = combinedTargetsName(ArrayUtil.toStringArray(component));
+      final TargetInfo.UnionBuilder combinedInfoBuilder = new TargetInfo.UnionBuilder();
+      for (String targetName : component) {
+        combinedInfoBuilder.add(projectInfo.getTarget(targetName));
+      }
+      final TargetInfo combinedInfo = combinedInfoBuilder.build();
+      for (String targetName : component) {
+        combinedInfo.removeDependency(targetName);
+        replacements.put(targetName, combinedTargetName);
+      }
+      projectInfo.addTarget(combinedTargetName, combinedInfo);
+    }
+    projectInfo.replaceTargets(replacements);
+  }
 
-          log.info(String.format("Found cyclic dependency between %s and %s", targetName, dependencyTargetName));
+  /**
+   * Tarjan's strongly connected components algorithm, with an explicit stack so that long dependency chains
+   * do not overflow the call stack. Dependencies on unknown targets are ignored.
+   *
+   * @return components with more than one target.
+   */
+  @NotNull
+  static List<List<String>> findCycles(@NotNull Map<String, TargetInfo> targets) {
+    final Map<String, Integer> indices = new HashMap<>(targets.size() * 4 / 3 + 1);
+    final Map<String, Integer> lowLinks = new HashMap<>(targets.size() * 4 / 3 + 1);
+    final Deque<String> componentStack = new ArrayDeque<>();
+    final Map<String, Boolean> onComponentStack = new HashMap<>();
+    final List<List<String>> result = new ArrayList<>();
 
-          final String combinedTargetName = combinedTargetsName(targetName, dependencyTargetName);
-          final TargetInfo combinedInfo = targetInfo.union(dependencyTargetInfo);
-          combinedInfo.removeDependency(targetName);
-          combinedInfo.removeDependency(dependencyTargetName);
-          projectInfo.addTarget(combinedTargetName, combinedInfo);
+    final Deque<String> callStack = new ArrayDeque<>();
+    final Map<String, Iterator<String>> pendingDependencies = new HashMap<>();
+    for (String root : targets.keySet()) {
+      if (indices.containsKey(root)) {
+        continue;
+      }
+      callStack.push(root);
+      while (!callStack.isEmpty()) {
+        final String targetName = callStack.peek();
+        Iterator<String> dependencies = pendingDependencies.get(targetName);
+        if (dependencies == null) {
+          indices.put(targetName, indices.size());
+          lowLinks.put(targetName, indices.get(targetName));
+          componentStack.push(targetName);
+          onComponentStack.put(targetName, Boolean.TRUE);
+          dependencies = targets.get(targetName).getTargets().iterator();
+          pendingDependencies.put(targetName, dependencies);
+        }
 
-          projectInfo.replaceDependency(targetName, combinedTargetName);
-          projectInfo.removeTarget(targetName);
+        boolean descended = false;
+        while (dependencies.hasNext()) {
+          final String dependency = dependencies.next();
+          if (!targets.containsKey(dependency)) {
+            continue;
+          }
+          if (!indices.containsKey(dependency)) {
+            callStack.push(dependency);
+            descended = true;
+            break;
+          }
+          if (onComponentStack.getOrDefault(dependency, Boolean.FALSE)) {
+            lowLinks.put(targetName, Math.min(lowLinks.get(targetName), indices.get(dependency)));
+          }
+        }
+        if (descended) {
+          continue;
+        }
 
-          projectInfo.replaceDependency(dependencyTargetName, combinedTargetName);
-          projectInfo.removeTarget(dependencyTargetName);
+        callStack.pop();
+        pendingDependencies.remove(targetName);
+        if (lowLinks.get(targetName).equals(indices.get(targetName))) {
+          final List<String> component = new ArrayList<>();
+          String member;
+          do {
+            member = componentStack.pop();
+            onComponentStack.put(member, Boolean.FALSE);
+            component.add(member);
+          }
+          while (!member.equals(targetName));
+          if (component.size() > 1) {
+            result.add(component);
+          }
+        }
+        final String dependee = callStack.peek();
+        if (dependee != null) {
+          lowLinks.put(dependee, Math.min(lowLinks.get(dependee), lowLinks.get(targetName)));
         }
       }
     }
+    return result;
   }
 
   @NotNull
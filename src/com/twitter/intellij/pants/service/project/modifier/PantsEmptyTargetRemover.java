@@ -10,24 +10,36 @@ import com.twitter.intellij.pants.service.project.model.ProjectInfo;
 import com.twitter.intellij.pants.service.project.model.TargetInfo;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 
 public class PantsEmptyTargetRemover implements PantsProjectInfoModifierExtension {
   @Override
   public void modify(@NotNull ProjectInfo projectInfo, @NotNull PantsCompileOptionsExecutor executor, @NotNull Logger log) {
-    final List<String> emptyTargets = new ArrayList<>();
-    do {
-      emptyTargets.clear();
-      for (Map.Entry<String, TargetInfo> targetInfoEntry : projectInfo.getTargets().entrySet()) {
-        final String targetName = targetInfoEntry.getKey();
-        final TargetInfo targetInfo = targetInfoEntry.getValue();
-        if (targetInfo.isEmpty()) {
-          emptyTargets.add(targetName);
+    final Deque<String> emptyTargets = new ArrayDeque<>();
+    for (Map.Entry<String, TargetInfo> targetInfoEntry : projectInfo.getTargets().entrySet()) {
+      if (targetInfoEntry.getValue().isEmpty()) {
+        emptyTargets.add(targetInfoEntry.getKey());
+      }
+    }
+    // Removing a target can only make its dependees empty, so only those need another look.
+    while (!emptyTargets.isEmpty()) {
+      final String targetName = emptyTargets.poll();
+      final TargetInfo targetInfo = projectInfo.getTarget(targetName);
+      if (targetInfo == null || !targetInfo.isEmpty()) {
+        continue;
+      }
+      final List<String> dependees = new ArrayList<>(projectInfo.getDependees(targetName));
+      projectInfo.removeTarget(targetName);
+      for (String dependee : dependees) {
+        final TargetInfo dependeeInfo = projectInfo.getTarget(dependee);
+        if (dependeeInfo != null && dependeeInfo.isEmpty()) {
+          emptyTargets.add(dependee);
         }
       }
-      projectInfo.removeTargets(emptyTargets);
-    } while (!emptyTargets.isEmpty());
+    }
   }
 }
@@ -3,9 +3,7 @@
 
 package com.twitter.intellij.pants.service.project.modifier;
 
-import com.google.common.collect.Sets;
 import com.intellij.openapi.diagnostic.Logger;
-import com.intellij.openapi.util.io.FileUtil;
 import com.twitter.intellij.pants.service.PantsCompileOptionsExecutor;
 import com.twitter.intellij.pants.service.project.PantsProjectInfoModifierExtension;
 import com.twitter.intellij.pants.service.project.model.ContentRoot;
@@ -14,42 +12,63 @@ import com.twitter.intellij.pants.service.project.model.TargetInfo;
 import com.twitter.intellij.pants.util.PantsUtil;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
 
 import java.io.File;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 public class PantsSourceRootCompressor implements PantsProjectInfoModifierExtension {
   @Override
   public void modify(@NotNull ProjectInfo projectInfo, @NotNull PantsCompileOptionsExecutor executor, @NotNull Logger log) {
+    // Only targets whose roots share a single package root can be compressed.
+    final Map<TargetInfo, String> packageRoots = new LinkedHashMap<>();
+    final PathTrie<TargetInfo> sourceRoots = new PathTrie<>();
     for (TargetInfo info : projectInfo.getTargets().values()) {
-      info.setRoots(compressRootsIfPossible(info.getRoots()));
+      final Set<String> infoPackageRoots = info.getRoots().stream().map(ContentRoot::getPackageRoot).collect(Collectors.toSet());
+      if (infoPackageRoots.size() != 1) {
+        continue;
+      }
+      packageRoots.put(info, infoPackageRoots.iterator().next());
+      for (ContentRoot root : info.getRoots()) {
+        sourceRoots.add(new File(root.getRawSourceRoot()), info);
+      }
+    }
+
+    final DirectoryListings listings = new DirectoryListings();
+    for (Map.Entry<TargetInfo, String> infoAndPackageRoot : packageRoots.entrySet()) {
+      final TargetInfo info = infoAndPackageRoot.getKey();
+      info.setRoots(compressRoots(info, infoAndPackageRoot.getValue(), sourceRoots, listings));
     }
   }
 
   @NotNull
-  private Set<ContentRoot> compressRootsIfPossible(@NotNull Set<ContentRoot> roots) {
-    final Set<String> packageRoots = roots.stream().map(ContentRoot::getPackageRoot).collect(Collectors.toSet());
-    if (packageRoots.size() != 1) {
-      return roots;
-    }
-    final String packageRoot = packageRoots.iterator().next();
-    final Set<File> sourceRoots = roots.stream().map(ContentRoot::getRawSourceRoot).map(File::new).collect(Collectors.toSet());
+  private static Set<ContentRoot> compressRoots(
+    @NotNull TargetInfo info,
+    @NotNull String packageRoot,
+    @NotNull PathTrie<TargetInfo> sourceRoots,
+    @NotNull DirectoryListings listings
+  ) {
+    final Set<File> infoSourceRoots = info.getRoots().stream().map(ContentRoot::getRawSourceRoot).map(File::new).collect(Collectors.toSet());
 
-    if (folderContainsOnlyRoots(new File(packageRoot), sourceRoots)) {
+    if (folderContainsOnlyRoots(new File(packageRoot), infoSourceRoots, listings)) {
       return Collections.singleton(new ContentRoot(packageRoot, ""));
     }
-    Set<File> ancestorContentRootPaths = findAncestors(sourceRoots);
-    Set<ContentRoot> finalContentRoots = ancestorContentRootPaths.stream()
+    return infoSourceRoots.stream()
+      .filter(filePath -> !sourceRoots.hasAncestor(filePath, info))
       .map(filePath -> {
         String packagePrefix =
           String.join(".", new File(packageRoot).toURI().relativize(filePath.toURI()).toString().split(File.separator));
         return new ContentRoot(filePath.getPath(), packagePrefix);
       })
       .collect(Collectors.toSet());
-    return finalContentRoots;
   }
 
   /***
@@ -74,58 +93,74 @@ public class PantsSourceRootCompressor implements PantsProjectInfoModifierExtens
    * @param candidates a set of `File`s
    * @return the top ancestors among the candidates
    */
+  @TestOnly
   protected static Set<File> findAncestors(Set<File> candidates) {
-    Set<File> results = Sets.newHashSet();
-    results.addAll(candidates);
-
-    // TODO(yic): the algorithm is n^2, but typically a target would not have more than 5 content roots, and most of the time it only has 1.
-    // Like bubble sort, n^2 is not always bad.
-    for (File x : candidates) {
-      for (File y : candidates) {
-        if (FileUtil.filesEqual(x, y)) {
-          continue;
-        }
-        if (isYSubDirectoryOfX(x, y)) {
-          results.remove(y);
-        }
-      }
+    final PathTrie<Boolean> trie = new PathTrie<>();
+    for (File candidate : candidates) {
+      trie.add(candidate, Boolean.TRUE);
     }
-    return results;
+    return candidates.stream().filter(candidate -> !trie.hasAncestor(candidate, Boolean.TRUE)).collect(Collectors.toSet());
   }
 
-  /**
-   * Checks, whether the child directory is a subdirectory of the base
-   * directory.
-   *
-   * @param base  the base directory.
-   * @param child the suspected child directory.
-   * @return true, if the child is a subdirectory of the base directory.
-   */
-  public static boolean isYSubDirectoryOfX(File base, File child) {
-    File parentFile = child;
-    while (parentFile != null) {
-      if (FileUtil.filesEqual(base, parentFile)) {
-        return true;
+  private static boolean folderContainsOnlyRoots(
+    @NotNull File root,
+    @NotNull Set<File> foldersWithSources,
+    @NotNull DirectoryListings listings
+  ) {
+    final DirectoryListing listing = listings.list(root);
+    if (listing == null) {
+      return false;
+    }
+    if (!listing.myOnlyBuildFiles && !foldersWithSources.contains(root)) {
+      return false;
+    }
+    for (File directory : listing.myDirectories) {
+      if (!folderContainsOnlyRoots(directory, foldersWithSources, listings)) {
+        return false;
       }
-      parentFile = parentFile.getParentFile();
     }
-    return false;
+    return true;
   }
 
-  private boolean folderContainsOnlyRoots(@NotNull File root, Set<File> foldersWithSources) {
-    final File[] files = root.listFiles();
-    if (files == null) {
-      return false;
+  private static final class DirectoryListing {
+    private final List<File> myDirectories;
+    // whether all plain files in the directory are BUILD files
+    private final boolean myOnlyBuildFiles;
+
+    private DirectoryListing(@NotNull List<File> directories, boolean onlyBuildFiles) {
+      myDirectories = directories;
+      myOnlyBuildFiles = onlyBuildFiles;
     }
-    for (File file : files) {
-      if (file.isFile() && !PantsUtil.isBUILDFileName(file.getName()) && !foldersWithSources.contains(root)) {
-        return false;
+  }
+
+  /**
+   * Targets of one import mostly share package roots, so each directory is only listed once per import.
+   */
+  private static final class DirectoryListings {
+    private final Map<File, DirectoryListing> myListings = new HashMap<>();
+
+    @Nullable
+    private DirectoryListing list(@NotNull File dir) {
+      if (myListings.containsKey(dir)) {
+        return myListings.get(dir);
       }
-      if (file.isDirectory() && !folderContainsOnlyRoots(file, foldersWithSources)) {
-        return false;
+      final File[] files = dir.listFiles();
+      DirectoryListing listing = null;
+      if (files != null) {
+        final List<File> directories = new ArrayList<>();
+        boolean onlyBuildFiles = true;
+        for (File file : files) {
+          if (file.isDirectory()) {
+            directories.add(file);
+          }
+          else if (file.isFile() && !PantsUtil.isBUILDFileName(file.getName())) {
+            onlyBuildFiles = false;
+          }
+        }
+        listing = new DirectoryListing(directories, onlyBuildFiles);
       }
+      myListings.put(dir, listing);
+      return listing;
     }
-
-    return true;
   }
 }
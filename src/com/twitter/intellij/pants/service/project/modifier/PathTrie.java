@@ -0,0 +1,74 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.service.project.modifier;
+
+import com.intellij.openapi.util.SystemInfo;
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Directories stored by path segment, each one marked with the owners it was added for,
+ * so that looking for an ancestor of a directory takes one step per segment of its path.
+ */
+final class PathTrie<T> {
+  private final Node<T> myRoot = new Node<>();
+
+  private static final class Node<T> {
+    private final Map<String, Node<T>> myChildren = new HashMap<>();
+    private Set<T> myOwners = Collections.emptySet();
+  }
+
+  void add(@NotNull File dir, @NotNull T owner) {
+    Node<T> node = myRoot;
+    for (String segment : getSegments(dir)) {
+      node = node.myChildren.computeIfAbsent(segment, s -> new Node<>());
+    }
+    if (node.myOwners.isEmpty()) {
+      node.myOwners = new HashSet<>();
+    }
+    node.myOwners.add(owner);
+  }
+
+  /**
+   * @return true if a directory containing {@code dir}, other than {@code dir} itself, was added for {@code owner}.
+   */
+  boolean hasAncestor(@NotNull File dir, @NotNull T owner) {
+    final List<String> segments = getSegments(dir);
+    Node<T> node = myRoot;
+    for (int i = 0; i < segments.size() - 1; i++) {
+      if (node.myOwners.contains(owner)) {
+        return true;
+      }
+      node = node.myChildren.get(segments.get(i));
+      if (node == null) {
+        return false;
+      }
+    }
+    return !segments.isEmpty() && node.myOwners.contains(owner);
+  }
+
+  @NotNull
+  private static List<String> getSegments(@NotNull File dir) {
+    final String path = FileUtil.toSystemIndependentName(dir.getPath());
+    final String[] parts = (SystemInfo.isFileSystemCaseSensitive ? path : path.toLowerCase(Locale.ROOT)).split("/");
+    final List<String> segments = new ArrayList<>(parts.length);
+    for (int i = 0; i < parts.length; i++) {
+      // an empty first segment stands for the file system root of an absolute path
+      if (i == 0 || !parts[i].isEmpty()) {
+        segments.add(parts[i]);
+      }
+    }
+    return segments;
+  }
+}
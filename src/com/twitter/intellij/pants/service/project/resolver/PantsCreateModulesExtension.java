@@ -7,6 +7,7 @@ import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.externalSystem.model.DataNode;
+import com.intellij.openapi.externalSystem.model.Key;
 import com.intellij.openapi.externalSystem.model.ProjectKeys;
 import com.intellij.openapi.externalSystem.model.project.ModuleData;
 import com.intellij.openapi.externalSystem.model.project.ModuleSdkData;
@@ -30,8 +31,13 @@ import com.twitter.intellij.pants.util.PantsConstants;
 import com.twitter.intellij.pants.util.PantsUtil;
 import icons.PantsIcons;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -43,9 +49,33 @@ public class PantsCreateModulesExtension implements PantsResolverExtension {
 
   private Integer depthToInclude = null;
 
+  @Nullable
+  @Override
+  public Collection<Key<?>> getReadKeys() {
+    return Collections.emptyList();
+  }
+
+  @Nullable
+  @Override
+  public Collection<Key<?>> getWrittenKeys() {
+    return Arrays.asList(ProjectKeys.MODULE, ModuleSdkData.KEY, TargetMetadata.KEY);
+  }
+
+  @Override
+  public void resolve(
+    @NotNull ProjectInfo projectInfo,
+    @NotNull PantsCompileOptionsExecutor executor,
+    @NotNull DataNode<ProjectData> projectDataNode,
+    @NotNull Map<String, DataNode<ModuleData>> modules,
+    @NotNull Optional<BuildGraph> buildGraph
+  ) {
+    resolve(projectInfo, projectInfo.getSortedTargets(), executor, projectDataNode, modules, buildGraph);
+  }
+
   @Override
   public void resolve(
     @NotNull ProjectInfo projectInfo,
+    @NotNull List<Map.Entry<String, TargetInfo>> sortedTargets,
     @NotNull PantsCompileOptionsExecutor executor,
     @NotNull DataNode<ProjectData> projectDataNode,
     @NotNull Map<String, DataNode<ModuleData>> modules,
@@ -58,7 +88,7 @@ public class PantsCreateModulesExtension implements PantsResolverExtension {
       if (depthToInclude == null) {
         throw new PantsException("Task cancelled");
       }
-      logger.info(String.format("TargetInfo level %s", depthToInclude));
+      logger.info(String.format("TargetInfo level %s of max depth %s", depthToInclude, maxDepth));
       targetInfoWithinLevel = buildGraph
         .get()
         .getNodesUpToLevel(depthToInclude)
@@ -67,7 +97,7 @@ public class PantsCreateModulesExtension implements PantsResolverExtension {
         .collect(Collectors.toSet());
     }
 
-    for (Map.Entry<String, TargetInfo> entry : projectInfo.getSortedTargets()) {
+    for (Map.Entry<String, TargetInfo> entry : sortedTargets) {
       if (targetInfoWithinLevel != null && !targetInfoWithinLevel.contains(entry.getValue())) {
         continue;
       }
@@ -110,19 +140,19 @@ public class PantsCreateModulesExtension implements PantsResolverExtension {
       new File(executor.getBuildRoot(), targetName).getAbsolutePath()
     );
 
-    final DataNode<ModuleData> moduleDataNode = projectInfoDataNode.createChild(ProjectKeys.MODULE, moduleData);
+    final DataNode<ModuleData> moduleDataNode = PantsUtil.createChild(projectInfoDataNode, ProjectKeys.MODULE, moduleData);
 
     DataNode<ProjectSdkData> sdk = ExternalSystemApiUtil.find(projectInfoDataNode, ProjectSdkData.KEY);
     if(sdk != null){
       ModuleSdkData moduleSdk = new ModuleSdkData(sdk.getData().getSdkName());
-      moduleDataNode.createChild(ModuleSdkData.KEY, moduleSdk);
+      PantsUtil.createChild(moduleDataNode, ModuleSdkData.KEY, moduleSdk);
     }
 
     final TargetMetadata metadata = new TargetMetadata(PantsConstants.SYSTEM_ID, moduleName);
     metadata.setTargetAddresses(ContainerUtil.map(targetInfo.getAddressInfos(), TargetAddressInfo::getTargetAddress));
     metadata.setTargetAddressInfoSet(targetInfo.getAddressInfos());
     metadata.setLibraryExcludes(targetInfo.getExcludes());
-    moduleDataNode.createChild(TargetMetadata.KEY, metadata);
+    PantsUtil.createChild(moduleDataNode, TargetMetadata.KEY, metadata);
 
     return moduleDataNode;
   }
@@ -4,6 +4,7 @@
 package com.twitter.intellij.pants.service.project.resolver;
 
 import com.intellij.openapi.externalSystem.model.DataNode;
+import com.intellij.openapi.externalSystem.model.Key;
 import com.intellij.openapi.externalSystem.model.ProjectKeys;
 import com.intellij.openapi.externalSystem.model.project.LibraryData;
 import com.intellij.openapi.externalSystem.model.project.LibraryDependencyData;
@@ -13,29 +14,62 @@ import com.intellij.openapi.externalSystem.model.project.ModuleData;
 import com.intellij.openapi.externalSystem.model.project.ProjectData;
 import com.intellij.openapi.util.io.FileUtil;
 import com.twitter.intellij.pants.service.PantsCompileOptionsExecutor;
+import com.twitter.intellij.pants.service.project.PantsPathExistenceService;
 import com.twitter.intellij.pants.service.project.PantsResolverExtension;
 import com.twitter.intellij.pants.service.project.model.LibraryInfo;
 import com.twitter.intellij.pants.service.project.model.ProjectInfo;
 import com.twitter.intellij.pants.service.project.model.TargetInfo;
 import com.twitter.intellij.pants.service.project.model.graph.BuildGraph;
 import com.twitter.intellij.pants.util.PantsConstants;
+import com.twitter.intellij.pants.util.PantsUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public class PantsLibrariesExtension implements PantsResolverExtension {
+  @Nullable
+  @Override
+  public Collection<Key<?>> getReadKeys() {
+    return Arrays.asList(ProjectKeys.MODULE);
+  }
+
+  @Nullable
+  @Override
+  public Collection<Key<?>> getWrittenKeys() {
+    return Arrays.asList(ProjectKeys.LIBRARY, ProjectKeys.LIBRARY_DEPENDENCY);
+  }
+
+  @Override
+  public void resolve(
+    @NotNull ProjectInfo projectInfo,
+    @NotNull PantsCompileOptionsExecutor executor,
+    @NotNull DataNode<ProjectData> projectDataNode,
+    @NotNull Map<String, DataNode<ModuleData>> modules,
+    @NotNull Optional<BuildGraph> buildGraph
+  ) {
+    resolve(projectInfo, projectInfo.getSortedTargets(), executor, projectDataNode, modules, buildGraph);
+  }
+
   @Override
   public void resolve(
     @NotNull ProjectInfo projectInfo,
+    @NotNull List<Map.Entry<String, TargetInfo>> sortedTargets,
     @NotNull PantsCompileOptionsExecutor executor,
     @NotNull DataNode<ProjectData> projectDataNode,
     @NotNull Map<String, DataNode<ModuleData>> modules,
     @NotNull Optional<BuildGraph> buildGraph
   ) {
-    for (Map.Entry<String, TargetInfo> entry : projectInfo.getSortedTargets()) {
+    final List<Map.Entry<String, TargetInfo>> libraryTargets = new ArrayList<>();
+    final Set<String> jarPaths = new HashSet<>();
+    for (Map.Entry<String, TargetInfo> entry : sortedTargets) {
       final TargetInfo targetInfo = entry.getValue();
 
       if (executor.getOptions().isImportSourceDepsAsJars()) {
@@ -46,7 +80,25 @@ public class PantsLibrariesExtension implements PantsResolverExtension {
       else if (!targetInfo.isJarLibrary()) {
         continue;
       }
+      libraryTargets.add(entry);
+
+      for (String libraryId : targetInfo.getLibraries()) {
+        final LibraryInfo libraryInfo = projectInfo.getLibraries(libraryId);
+        if (libraryInfo == null) {
+          continue;
+        }
+        for (String path : libraryInfo.getContents().values()) {
+          if (path != null) {
+            jarPaths.add(getAbsolutePath(executor, path));
+          }
+        }
+      }
+    }
+    // a single batch instead of a stat call per jar on this thread
+    final Set<String> existingJarPaths = PantsPathExistenceService.getInstance().filterExisting(jarPaths);
 
+    for (Map.Entry<String, TargetInfo> entry : libraryTargets) {
+      final TargetInfo targetInfo = entry.getValue();
       final String jarTarget = entry.getKey();
       final LibraryData libraryData = new LibraryData(PantsConstants.SYSTEM_ID, jarTarget);
 
@@ -57,16 +109,16 @@ public class PantsLibrariesExtension implements PantsResolverExtension {
           continue;
         }
 
-        addPathLoLibrary(libraryData, executor, LibraryPathType.BINARY, libraryInfo.getDefault());
-        addPathLoLibrary(libraryData, executor, LibraryPathType.SOURCE, libraryInfo.getSources());
-        addPathLoLibrary(libraryData, executor, LibraryPathType.DOC, libraryInfo.getJavadoc());
+        addPathLoLibrary(libraryData, executor, existingJarPaths, LibraryPathType.BINARY, libraryInfo.getDefault());
+        addPathLoLibrary(libraryData, executor, existingJarPaths, LibraryPathType.SOURCE, libraryInfo.getSources());
+        addPathLoLibrary(libraryData, executor, existingJarPaths, LibraryPathType.DOC, libraryInfo.getJavadoc());
 
         for (String otherLibraryInfo : libraryInfo.getJarsWithCustomClassifiers()) {
-          addPathLoLibrary(libraryData, executor, LibraryPathType.BINARY, otherLibraryInfo);
+          addPathLoLibrary(libraryData, executor, existingJarPaths, LibraryPathType.BINARY, otherLibraryInfo);
         }
       }
 
-      projectDataNode.createChild(ProjectKeys.LIBRARY, libraryData);
+      PantsUtil.createChild(projectDataNode, ProjectKeys.LIBRARY, libraryData);
       final DataNode<ModuleData> moduleDataNode = modules.get(jarTarget);
       if (moduleDataNode == null) {
         continue;
@@ -78,22 +130,28 @@ public class PantsLibrariesExtension implements PantsResolverExtension {
         LibraryLevel.PROJECT
       );
       library.setExported(true);
-      moduleDataNode.createChild(ProjectKeys.LIBRARY_DEPENDENCY, library);
+      PantsUtil.createChild(moduleDataNode, ProjectKeys.LIBRARY_DEPENDENCY, library);
     }
   }
 
+  @NotNull
+  private static String getAbsolutePath(@NotNull PantsCompileOptionsExecutor executor, @NotNull String path) {
+    return FileUtil.isAbsolute(path) ? path : executor.getAbsolutePathFromWorkingDir(path);
+  }
+
   private void addPathLoLibrary(
     @NotNull LibraryData libraryData,
     @NotNull PantsCompileOptionsExecutor executor,
+    @NotNull Set<String> existingPaths,
     @NotNull LibraryPathType binary,
     @Nullable String path
   ) {
     if (path == null) {
       return;
     }
-    path = FileUtil.isAbsolute(path) ? path : executor.getAbsolutePathFromWorkingDir(path);
+    path = getAbsolutePath(executor, path);
 
-    if (new File(path).exists()) {
+    if (existingPaths.contains(path)) {
       libraryData.addPath(binary, path);
     }
   }
@@ -4,6 +4,7 @@
 package com.twitter.intellij.pants.service.project.resolver;
 
 import com.intellij.openapi.externalSystem.model.DataNode;
+import com.intellij.openapi.externalSystem.model.Key;
 import com.intellij.openapi.externalSystem.model.ProjectKeys;
 import com.intellij.openapi.externalSystem.model.project.ModuleData;
 import com.intellij.openapi.externalSystem.model.project.ModuleDependencyData;
@@ -15,48 +16,90 @@ import com.twitter.intellij.pants.service.project.model.ProjectInfo;
 import com.twitter.intellij.pants.service.project.model.TargetInfo;
 import com.twitter.intellij.pants.util.PantsUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public class PantsModuleDependenciesExtension implements PantsResolverExtension {
+  @Nullable
+  @Override
+  public Collection<Key<?>> getReadKeys() {
+    return Arrays.asList(ProjectKeys.MODULE);
+  }
+
+  @Nullable
+  @Override
+  public Collection<Key<?>> getWrittenKeys() {
+    return Arrays.asList(ProjectKeys.MODULE_DEPENDENCY);
+  }
+
+  @Override
+  public void resolve(
+    @NotNull ProjectInfo projectInfo,
+    @NotNull PantsCompileOptionsExecutor executor,
+    @NotNull DataNode<ProjectData> projectDataNode,
+    @NotNull Map<String, DataNode<ModuleData>> modules,
+    @NotNull Optional<BuildGraph> buildGraph
+  ) {
+    resolve(projectInfo, projectInfo.getSortedTargets(), executor, projectDataNode, modules, buildGraph);
+  }
+
   @Override
   public void resolve(
     @NotNull ProjectInfo projectInfo,
+    @NotNull List<Map.Entry<String, TargetInfo>> sortedTargets,
     @NotNull PantsCompileOptionsExecutor executor,
     @NotNull DataNode<ProjectData> projectDataNode,
     @NotNull Map<String, DataNode<ModuleData>> modules,
     @NotNull Optional<BuildGraph> buildGraph
   ) {
-    for (Map.Entry<String, TargetInfo> entry : projectInfo.getSortedTargets()) {
+    final Map<String, Integer> moduleIndices = new HashMap<>(modules.size() * 4 / 3 + 1);
+    for (String moduleTarget : modules.keySet()) {
+      moduleIndices.put(moduleTarget, moduleIndices.size());
+    }
+    // dependencies added so far, see edge()
+    final Set<Long> edges = new HashSet<>();
+    for (Map.Entry<String, TargetInfo> entry : sortedTargets) {
       final String mainTarget = entry.getKey();
       final TargetInfo targetInfo = entry.getValue();
-      if (!modules.containsKey(mainTarget)) {
+      final Integer mainIndex = moduleIndices.get(mainTarget);
+      if (mainIndex == null) {
         continue;
       }
       final DataNode<ModuleData> moduleDataNode = modules.get(mainTarget);
       for (String target : targetInfo.getTargets()) {
-        if (!modules.containsKey(target)) {
+        final Integer targetIndex = moduleIndices.get(target);
+        if (targetIndex == null) {
+          continue;
+        }
+        // of two modules depending on each other, only the first edge is kept
+        if (edges.contains(edge(targetIndex, mainIndex))) {
           continue;
         }
-        addModuleDependency(moduleDataNode, modules.get(target), true);
+        if (edges.add(edge(mainIndex, targetIndex))) {
+          addModuleDependency(moduleDataNode, modules.get(target), true);
+        }
       }
     }
   }
 
+  private static long edge(int moduleIndex, int dependencyIndex) {
+    return ((long)moduleIndex << 32) | dependencyIndex;
+  }
+
   private void addModuleDependency(DataNode<ModuleData> moduleDataNode, DataNode<ModuleData> submoduleDataNode, boolean exported) {
-    final List<ModuleDependencyData> subModuleDeps = PantsUtil.findChildren(submoduleDataNode, ProjectKeys.MODULE_DEPENDENCY);
-    for (ModuleDependencyData dep : subModuleDeps) {
-      if (dep.getTarget().equals(moduleDataNode.getData())) {
-        return;
-      }
-    }
     final ModuleDependencyData moduleDependencyData = new ModuleDependencyData(
       moduleDataNode.getData(),
       submoduleDataNode.getData()
     );
     moduleDependencyData.setExported(exported);
-    moduleDataNode.createChild(ProjectKeys.MODULE_DEPENDENCY, moduleDependencyData);
+    PantsUtil.createChild(moduleDataNode, ProjectKeys.MODULE_DEPENDENCY, moduleDependencyData);
   }
 }
@@ -4,6 +4,7 @@
 package com.twitter.intellij.pants.service.project.resolver;
 
 import com.intellij.openapi.externalSystem.model.DataNode;
+import com.intellij.openapi.externalSystem.model.Key;
 import com.intellij.openapi.externalSystem.model.ProjectKeys;
 import com.intellij.openapi.externalSystem.model.project.ContentRootData;
 import com.intellij.openapi.externalSystem.model.project.ModuleData;
@@ -19,9 +20,12 @@ import com.twitter.intellij.pants.service.project.model.ProjectInfo;
 import com.twitter.intellij.pants.service.project.model.TargetInfo;
 import com.twitter.intellij.pants.service.project.model.graph.BuildGraph;
 import com.twitter.intellij.pants.util.PantsConstants;
+import com.twitter.intellij.pants.util.PantsUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -49,15 +53,39 @@ public class PantsSourceRootsExtension implements PantsResolverExtension {
   }
 
 
+  @Nullable
+  @Override
+  public Collection<Key<?>> getReadKeys() {
+    return Arrays.asList(ProjectKeys.MODULE);
+  }
+
+  @Nullable
+  @Override
+  public Collection<Key<?>> getWrittenKeys() {
+    return Arrays.asList(ProjectKeys.CONTENT_ROOT);
+  }
+
+  @Override
+  public void resolve(
+    @NotNull ProjectInfo projectInfo,
+    @NotNull PantsCompileOptionsExecutor executor,
+    @NotNull DataNode<ProjectData> projectDataNode,
+    @NotNull Map<String, DataNode<ModuleData>> modules,
+    @NotNull Optional<BuildGraph> buildGraph
+  ) {
+    resolve(projectInfo, projectInfo.getSortedTargets(), executor, projectDataNode, modules, buildGraph);
+  }
+
   @Override
   public void resolve(
     @NotNull ProjectInfo projectInfo,
+    @NotNull List<Map.Entry<String, TargetInfo>> sortedTargets,
     @NotNull PantsCompileOptionsExecutor executor,
     @NotNull DataNode<ProjectData> projectDataNode,
     @NotNull Map<String, DataNode<ModuleData>> modules,
     @NotNull Optional<BuildGraph> buildGraph
   ) {
-    for (Map.Entry<String, TargetInfo> entry : projectInfo.getSortedTargets()) {
+    for (Map.Entry<String, TargetInfo> entry : sortedTargets) {
       final String targetAddress = entry.getKey();
       final TargetInfo targetInfo = entry.getValue();
       if (!modules.containsKey(targetAddress)) {
@@ -77,7 +105,7 @@ public class PantsSourceRootsExtension implements PantsResolverExtension {
 
     for (String baseRoot : findBaseRoots(targetInfo, roots)) {
       final ContentRootData contentRoot = new ContentRootData(PantsConstants.SYSTEM_ID, baseRoot);
-      moduleDataNode.createChild(ProjectKeys.CONTENT_ROOT, contentRoot);
+      PantsUtil.createChild(moduleDataNode, ProjectKeys.CONTENT_ROOT, contentRoot);
 
       for (ContentRoot sourceRoot : roots) {
         final String sourceRootPathToAdd = getSourceRootRegardingTargetType(targetInfo, sourceRoot);
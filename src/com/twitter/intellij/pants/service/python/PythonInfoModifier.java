@@ -27,8 +27,8 @@ public class PythonInfoModifier implements PantsProjectInfoModifierExtension {
     @NotNull PantsCompileOptionsExecutor executor,
     @NotNull Logger log
   ) {
-    TargetInfo sources = new TargetInfo();
-    TargetInfo tests = new TargetInfo();
+    final TargetInfo.UnionBuilder sourcesBuilder = new TargetInfo.UnionBuilder();
+    final TargetInfo.UnionBuilder testsBuilder = new TargetInfo.UnionBuilder();
     final Set<String> pythonTargetNames = ContainerUtilRt.newHashSet();
     for (Map.Entry<String, TargetInfo> entry : projectInfo.getTargets().entrySet()) {
       final String targetName = entry.getKey();
@@ -38,11 +38,13 @@ public class PythonInfoModifier implements PantsProjectInfoModifierExtension {
       }
       pythonTargetNames.add(targetName);
       if (targetInfo.isTest()) {
-        tests = tests.union(targetInfo);
+        testsBuilder.add(targetInfo);
       } else {
-        sources = sources.union(targetInfo);
+        sourcesBuilder.add(targetInfo);
       }
     }
+    final TargetInfo sources = sourcesBuilder.build();
+    final TargetInfo tests = testsBuilder.build();
     if (sources.isEmpty()) {
       return;
     }
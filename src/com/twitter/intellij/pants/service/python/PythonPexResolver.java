@@ -5,6 +5,7 @@ package com.twitter.intellij.pants.service.python;
 
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.externalSystem.model.DataNode;
+import com.intellij.openapi.externalSystem.model.Key;
 import com.intellij.openapi.externalSystem.model.ProjectKeys;
 import com.intellij.openapi.externalSystem.model.project.*;
 import com.intellij.openapi.vfs.VirtualFile;
@@ -16,13 +17,28 @@ import com.twitter.intellij.pants.service.project.model.ProjectInfo;
 import com.twitter.intellij.pants.util.PantsConstants;
 import com.twitter.intellij.pants.util.PantsUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 
 public class PythonPexResolver implements PantsResolverExtension {
   private static final Logger LOG = Logger.getInstance(PythonPexResolver.class);
 
+  @Nullable
+  @Override
+  public Collection<Key<?>> getReadKeys() {
+    return Arrays.asList(ProjectKeys.MODULE);
+  }
+
+  @Nullable
+  @Override
+  public Collection<Key<?>> getWrittenKeys() {
+    return Arrays.asList(ProjectKeys.LIBRARY, ProjectKeys.LIBRARY_DEPENDENCY);
+  }
+
   @Override
   public void resolve(
     @NotNull ProjectInfo projectInfo,
@@ -37,7 +53,7 @@ public class PythonPexResolver implements PantsResolverExtension {
     if (pexFile.isPresent()) {
       final LibraryData libraryData = new LibraryData(PantsConstants.SYSTEM_ID, PantsConstants.PANTS_LIBRARY_NAME);
       libraryData.addPath(LibraryPathType.BINARY, pexFile.get().getPath());
-      projectDataNode.createChild(ProjectKeys.LIBRARY, libraryData);
+      PantsUtil.createChild(projectDataNode, ProjectKeys.LIBRARY, libraryData);
 
       for (DataNode<ModuleData> moduleDataNode : modules.values()) {
         final LibraryDependencyData library = new LibraryDependencyData(
@@ -46,7 +62,7 @@ public class PythonPexResolver implements PantsResolverExtension {
           LibraryLevel.PROJECT
         );
         library.setExported(false);
-        moduleDataNode.createChild(ProjectKeys.LIBRARY_DEPENDENCY, library);
+        PantsUtil.createChild(moduleDataNode, ProjectKeys.LIBRARY_DEPENDENCY, library);
       }
     }
   }
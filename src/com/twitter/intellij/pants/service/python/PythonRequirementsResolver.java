@@ -4,6 +4,7 @@
 package com.twitter.intellij.pants.service.python;
 
 import com.intellij.openapi.externalSystem.model.DataNode;
+import com.intellij.openapi.externalSystem.model.Key;
 import com.intellij.openapi.externalSystem.model.ProjectKeys;
 import com.intellij.openapi.externalSystem.model.project.*;
 import com.intellij.openapi.module.ModuleTypeId;
@@ -15,9 +16,14 @@ import com.twitter.intellij.pants.service.project.model.ProjectInfo;
 import com.twitter.intellij.pants.service.project.model.PythonSetup;
 import com.twitter.intellij.pants.service.project.model.TargetInfo;
 import com.twitter.intellij.pants.util.PantsConstants;
+import com.twitter.intellij.pants.util.PantsUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -27,9 +33,33 @@ import java.util.Optional;
  *  @see PythonInfoModifier for details.
  */
 public class PythonRequirementsResolver implements PantsResolverExtension {
+  @Nullable
+  @Override
+  public Collection<Key<?>> getReadKeys() {
+    return Arrays.asList(ProjectKeys.MODULE);
+  }
+
+  @Nullable
+  @Override
+  public Collection<Key<?>> getWrittenKeys() {
+    return Arrays.asList(ProjectKeys.MODULE, ProjectKeys.MODULE_DEPENDENCY, ProjectKeys.CONTENT_ROOT, PythonSetupData.KEY);
+  }
+
+  @Override
+  public void resolve(
+    @NotNull ProjectInfo projectInfo,
+    @NotNull PantsCompileOptionsExecutor executor,
+    @NotNull DataNode<ProjectData> projectDataNode,
+    @NotNull Map<String, DataNode<ModuleData>> modules,
+    @NotNull Optional<BuildGraph> buildGraph
+  ) {
+    resolve(projectInfo, projectInfo.getSortedTargets(), executor, projectDataNode, modules, buildGraph);
+  }
+
   @Override
   public void resolve(
     @NotNull ProjectInfo projectInfo,
+    @NotNull List<Map.Entry<String, TargetInfo>> sortedTargets,
     @NotNull PantsCompileOptionsExecutor executor,
     @NotNull DataNode<ProjectData> projectDataNode,
     @NotNull Map<String, DataNode<ModuleData>> modules,
@@ -42,12 +72,13 @@ public class PythonRequirementsResolver implements PantsResolverExtension {
     }
 
     final DataNode<ModuleData> requirementsModuleDataNode = createRequirementsModule(projectDataNode, pythonSetup, executor);
-    requirementsModuleDataNode.createChild(
+    PantsUtil.createChild(
+      requirementsModuleDataNode,
       PythonSetupData.KEY,
       new PythonSetupData(requirementsModuleDataNode.getData(), pythonSetup.getDefaultInterpreterInfo())
     );
 
-    for (Map.Entry<String, TargetInfo> targetInfoEntry : projectInfo.getSortedTargets()) {
+    for (Map.Entry<String, TargetInfo> targetInfoEntry : sortedTargets) {
       final String targetName = targetInfoEntry.getKey();
       final TargetInfo targetInfo = targetInfoEntry.getValue();
       final DataNode<ModuleData> moduleDataNode = modules.get(targetName);
@@ -57,8 +88,9 @@ public class PythonRequirementsResolver implements PantsResolverExtension {
           requirementsModuleDataNode.getData()
         );
         moduleDependencyData.setExported(true);
-        moduleDataNode.createChild(ProjectKeys.MODULE_DEPENDENCY, moduleDependencyData);
-        moduleDataNode.createChild(
+        PantsUtil.createChild(moduleDataNode, ProjectKeys.MODULE_DEPENDENCY, moduleDependencyData);
+        PantsUtil.createChild(
+          moduleDataNode,
           PythonSetupData.KEY,
           new PythonSetupData(moduleDataNode.getData(), pythonSetup.getDefaultInterpreterInfo())
         );
@@ -82,7 +114,7 @@ public class PythonRequirementsResolver implements PantsResolverExtension {
       new File(executor.getBuildRoot(), moduleName).getAbsolutePath()
     );
 
-    final DataNode<ModuleData> moduleDataNode = projectDataNode.createChild(ProjectKeys.MODULE, moduleData);
+    final DataNode<ModuleData> moduleDataNode = PantsUtil.createChild(projectDataNode, ProjectKeys.MODULE, moduleData);
 
     final File chroot = new File(pythonSetup.getDefaultInterpreterInfo().getChroot());
     for (File dep : FileUtil.notNullize(new File(chroot, ".deps").listFiles())) {
@@ -91,7 +123,7 @@ public class PythonRequirementsResolver implements PantsResolverExtension {
       }
       final ContentRootData contentRoot = new ContentRootData(PantsConstants.SYSTEM_ID, dep.getAbsolutePath());
       contentRoot.storePath(ExternalSystemSourceType.SOURCE, dep.getAbsolutePath());
-      moduleDataNode.createChild(ProjectKeys.CONTENT_ROOT, contentRoot);
+      PantsUtil.createChild(moduleDataNode, ProjectKeys.CONTENT_ROOT, contentRoot);
     }
 
     return moduleDataNode;
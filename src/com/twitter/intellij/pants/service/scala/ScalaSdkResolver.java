@@ -5,6 +5,7 @@ package com.twitter.intellij.pants.service.scala;
 
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.externalSystem.model.DataNode;
+import com.intellij.openapi.externalSystem.model.Key;
 import com.intellij.openapi.externalSystem.model.ProjectKeys;
 import com.intellij.openapi.externalSystem.model.project.LibraryData;
 import com.intellij.openapi.externalSystem.model.project.LibraryDependencyData;
@@ -22,9 +23,13 @@ import com.twitter.intellij.pants.service.project.model.ProjectInfo;
 import com.twitter.intellij.pants.service.project.model.TargetInfo;
 import com.twitter.intellij.pants.util.PantsConstants;
 import com.twitter.intellij.pants.util.PantsScalaUtil;
+import com.twitter.intellij.pants.util.PantsUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -34,6 +39,18 @@ import java.util.Set;
 public class ScalaSdkResolver implements PantsResolverExtension {
   private static final Logger LOG = Logger.getInstance(ScalaSdkResolver.class);
 
+  @Nullable
+  @Override
+  public Collection<Key<?>> getReadKeys() {
+    return Arrays.asList(ProjectKeys.MODULE);
+  }
+
+  @Nullable
+  @Override
+  public Collection<Key<?>> getWrittenKeys() {
+    return Arrays.asList(ProjectKeys.LIBRARY, ProjectKeys.LIBRARY_DEPENDENCY, ScalaModelData.KEY);
+  }
+
   @Override
   public void resolve(
     @NotNull ProjectInfo projectInfo,
@@ -77,7 +94,7 @@ public class ScalaSdkResolver implements PantsResolverExtension {
         // todo: sources + docs
         libraryData.addPath(LibraryPathType.BINARY, jarPath);
       }
-      projectDataNode.createChild(ProjectKeys.LIBRARY, libraryData);
+      PantsUtil.createChild(projectDataNode, ProjectKeys.LIBRARY, libraryData);
       scalaLibId2Data.put(scalaLibraryId, libraryData);
     }
 
@@ -97,10 +114,10 @@ public class ScalaSdkResolver implements PantsResolverExtension {
         }
 
         final LibraryDependencyData libraryDependencyData = new LibraryDependencyData(moduleDataNode.getData(), libraryData, LibraryLevel.PROJECT);
-        moduleDataNode.createChild(ProjectKeys.LIBRARY_DEPENDENCY, libraryDependencyData);
+        PantsUtil.createChild(moduleDataNode, ProjectKeys.LIBRARY_DEPENDENCY, libraryDependencyData);
 
         final ScalaModelData scalaModelData = new ScalaModelData(scalaLibId, libraryData.getPaths(LibraryPathType.BINARY));
-        moduleDataNode.createChild(ScalaModelData.KEY, scalaModelData);
+        PantsUtil.createChild(moduleDataNode, ScalaModelData.KEY, scalaModelData);
       }
     }
   }
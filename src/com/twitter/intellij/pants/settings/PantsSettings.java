@@ -28,6 +28,7 @@ public class PantsSettings extends AbstractExternalSystemSettings<PantsSettings,
 
   protected boolean myUseIdeaProjectJdk = false;
   protected boolean myUsePantsMakeBeforeRun = true;
+  protected boolean myUsePantsd = false;
   protected int myResolverVersion = 0;
 
   public PantsSettings(@NotNull Project project) {
@@ -43,7 +44,7 @@ public class PantsSettings extends AbstractExternalSystemSettings<PantsSettings,
 
   @Override
   public int hashCode() {
-    return Objects.hash(myUseIdeaProjectJdk, myUsePantsMakeBeforeRun, myResolverVersion);
+    return Objects.hash(myUseIdeaProjectJdk, myUsePantsMakeBeforeRun, myUsePantsd, myResolverVersion);
   }
 
   @Override
@@ -57,6 +58,7 @@ public class PantsSettings extends AbstractExternalSystemSettings<PantsSettings,
     PantsSettings other = (PantsSettings) obj;
     return Objects.equals(myUseIdeaProjectJdk, other.myUseIdeaProjectJdk)
            && Objects.equals(myUsePantsMakeBeforeRun, other.myUsePantsMakeBeforeRun)
+           && Objects.equals(myUsePantsd, other.myUsePantsd)
            && Objects.equals(myResolverVersion, other.myResolverVersion);
   }
 
@@ -78,6 +80,17 @@ public class PantsSettings extends AbstractExternalSystemSettings<PantsSettings,
     return myUseIdeaProjectJdk;
   }
 
+  public void setUsePantsd(boolean usePantsd) {
+    myUsePantsd = usePantsd;
+  }
+
+  /**
+   * @return whether compiles should go through pantsd, if the Pants version of the project supports it.
+   */
+  public boolean isUsePantsd() {
+    return myUsePantsd;
+  }
+
   public boolean isEnableIncrementalImport() {
     return getLinkedProjectsSettings().stream().anyMatch(x -> x.incrementalImportDepth().isPresent());
   }
@@ -116,6 +129,7 @@ public class PantsSettings extends AbstractExternalSystemSettings<PantsSettings,
   protected void copyExtraSettingsFrom(@NotNull PantsSettings settings) {
     setResolverVersion(settings.getResolverVersion());
     setUseIdeaProjectJdk(settings.isUseIdeaProjectJdk());
+    setUsePantsd(settings.isUsePantsd());
   }
 
   @Override
@@ -128,6 +142,7 @@ public class PantsSettings extends AbstractExternalSystemSettings<PantsSettings,
     final MyState state = new MyState();
     state.setResolverVersion(getResolverVersion());
     state.setUseIdeaProjectJdk(isUseIdeaProjectJdk());
+    state.setUsePantsd(isUsePantsd());
     fillState(state);
     return state;
   }
@@ -137,12 +152,14 @@ public class PantsSettings extends AbstractExternalSystemSettings<PantsSettings,
     super.loadState(state);
     setResolverVersion(state.getResolverVersion());
     setUseIdeaProjectJdk(state.isUseIdeaProjectJdk());
+    setUsePantsd(state.isUsePantsd());
   }
 
   public static class MyState implements State<PantsProjectSettings> {
     Set<PantsProjectSettings> myLinkedExternalProjectsSettings = Sets.newTreeSet();
 
     boolean myUseIdeaProjectJdk = false;
+    boolean myUsePantsd = false;
     int myResolverVersion = 0;
 
     @XCollection(elementTypes = {PantsProjectSettings.class})
@@ -158,6 +175,14 @@ public class PantsSettings extends AbstractExternalSystemSettings<PantsSettings,
       return myUseIdeaProjectJdk;
     }
 
+    public void setUsePantsd(boolean usePantsd) {
+      myUsePantsd = usePantsd;
+    }
+
+    public boolean isUsePantsd() {
+      return myUsePantsd;
+    }
+
     public void setLinkedExternalProjectsSettings(Set<PantsProjectSettings> settings) {
       myLinkedExternalProjectsSettings = settings;
     }
@@ -19,7 +19,13 @@ public class PantsSystemSettingsControl implements ExternalSystemSettingsControl
 
   private static final String UPDATE_URL = "https://raw.githubusercontent.com/pantsbuild/intellij-pants-plugin/master/pants-beta-updates.xml";
 
+  private final PantsSettings mySettings;
   private JBCheckBox myUpdateChannel;
+  private JBCheckBox myUsePantsd;
+
+  public PantsSystemSettingsControl(@NotNull PantsSettings settings) {
+    mySettings = settings;
+  }
 
   public boolean updaterContainsBetaChannel() {
     final UpdateSettings updateSettings = UpdateSettings.getInstance();
@@ -43,16 +49,20 @@ public class PantsSystemSettingsControl implements ExternalSystemSettingsControl
   public void fillUi(@NotNull PaintAwarePanel content, int indentLevel) {
     myUpdateChannel = new JBCheckBox(PantsBundle.message("pants.settings.text.update.channel"));
     content.add(myUpdateChannel, ExternalSystemUiUtil.getFillLineConstraints(indentLevel));
+    myUsePantsd = new JBCheckBox(PantsBundle.message("pants.settings.text.use.pantsd"));
+    content.add(myUsePantsd, ExternalSystemUiUtil.getFillLineConstraints(indentLevel));
   }
 
   @Override
   public boolean isModified() {
-    return myUpdateChannel.isSelected() != updaterContainsBetaChannel();
+    return myUpdateChannel.isSelected() != updaterContainsBetaChannel()
+           || myUsePantsd.isSelected() != mySettings.isUsePantsd();
   }
 
   @Override
   public void reset() {
     myUpdateChannel.setSelected(updaterContainsBetaChannel());
+    myUsePantsd.setSelected(mySettings.isUsePantsd());
   }
 
   @Override
@@ -63,6 +73,7 @@ public class PantsSystemSettingsControl implements ExternalSystemSettingsControl
     if (!myUpdateChannel.isSelected() && updaterContainsBetaChannel()) {
       removeBetaChannel();
     }
+    settings.setUsePantsd(myUsePantsd.isSelected());
   }
 
   @Override
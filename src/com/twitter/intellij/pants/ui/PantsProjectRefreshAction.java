@@ -10,6 +10,8 @@ import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.DumbAware;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.twitter.intellij.pants.service.project.PantsExportCache;
 import com.twitter.intellij.pants.util.PantsUtil;
 
 public class PantsProjectRefreshAction extends AnAction implements DumbAware{
@@ -20,6 +22,8 @@ public class PantsProjectRefreshAction extends AnAction implements DumbAware{
       Messages.showInfoMessage("Project not found.", "Error");
       return;
     }
+    // An explicit refresh should pick up whatever the export cache can miss.
+    PantsUtil.findBuildRoot(project).ifPresent(buildRoot -> PantsExportCache.invalidate(VfsUtilCore.virtualToIoFile(buildRoot)));
     PantsUtil.refreshAllProjects(project);
   }
 }
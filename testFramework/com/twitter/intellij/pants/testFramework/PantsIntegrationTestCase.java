@@ -69,7 +69,7 @@ import com.intellij.util.ArrayUtil;
 import com.intellij.util.containers.ContainerUtil;
 import com.twitter.intellij.pants.execution.PantsExecuteTaskResult;
 import com.twitter.intellij.pants.execution.PantsMakeBeforeRun;
-import com.twitter.intellij.pants.metrics.PantsMetrics;
+import com.twitter.intellij.pants.metrics.PantsProjectMetrics;
 import com.twitter.intellij.pants.model.PantsOptions;
 import com.twitter.intellij.pants.settings.PantsProjectSettings;
 import com.twitter.intellij.pants.util.PantsConstants;
@@ -332,7 +332,7 @@ public abstract class PantsIntegrationTestCase extends ExternalSystemImportingTe
       });
     });
     importProject();
-    PantsMetrics.markIndexEnd();
+    PantsProjectMetrics.getInstance(myProject).stop(PantsProjectMetrics.INDEXING);
   }
 
   protected void assertGotoFileContains(String filename) {
@@ -0,0 +1,237 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.testFramework;
+
+import com.google.gson.stream.JsonWriter;
+import com.twitter.intellij.pants.service.project.PantsResolver;
+import com.twitter.intellij.pants.service.project.model.ProjectInfo;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates the output `pants export` would give for a made-up repository of any size,
+ * so that the resolve pipeline can be exercised at the scale of a large monorepo without one.
+ *
+ * Targets are laid out in {@link #depth(int)} layers, each one depending on {@link #fanOut(int)} targets
+ * of the next layer. The same settings and seed always give the same export.
+ *
+ * <pre>
+ * ProjectInfo info = new SyntheticExport().targets(50000).cycles(100).libraries(5000).toProjectInfo();
+ * resolver.setProjectInfo(info);
+ * </pre>
+ */
+public class SyntheticExport {
+  private int myTargets = 1000;
+  private int myFanOut = 3;
+  private int myDepth = 10;
+  private int myCycles = 0;
+  private int myCycleLength = 3;
+  private int mySourceRootSharing = 1;
+  private int myLibraries = 100;
+  private int myLibrariesPerTarget = 2;
+  private long mySeed = 0;
+  private String myBuildRoot = "/synthetic";
+
+  @NotNull
+  public SyntheticExport targets(int targets) {
+    myTargets = targets;
+    return this;
+  }
+
+  /**
+   * @param fanOut the number of direct dependencies of every target outside the last layer.
+   */
+  @NotNull
+  public SyntheticExport fanOut(int fanOut) {
+    myFanOut = fanOut;
+    return this;
+  }
+
+  /**
+   * @param depth the number of layers, i.e. the length of the longest dependency chain.
+   */
+  @NotNull
+  public SyntheticExport depth(int depth) {
+    myDepth = depth;
+    return this;
+  }
+
+  /**
+   * @param cycles the number of dependency cycles, each closed by one extra dependency. Cycles may coincide.
+   * @param length the number of targets in each cycle, at most the depth.
+   */
+  @NotNull
+  public SyntheticExport cycles(int cycles, int length) {
+    myCycles = cycles;
+    myCycleLength = length;
+    return this;
+  }
+
+  @NotNull
+  public SyntheticExport cycles(int cycles) {
+    return cycles(cycles, myCycleLength);
+  }
+
+  /**
+   * @param targetsPerRoot the number of consecutive targets of a layer with the same source root.
+   */
+  @NotNull
+  public SyntheticExport sourceRootSharing(int targetsPerRoot) {
+    mySourceRootSharing = targetsPerRoot;
+    return this;
+  }
+
+  @NotNull
+  public SyntheticExport libraries(int libraries) {
+    myLibraries = libraries;
+    return this;
+  }
+
+  @NotNull
+  public SyntheticExport librariesPerTarget(int librariesPerTarget) {
+    myLibrariesPerTarget = librariesPerTarget;
+    return this;
+  }
+
+  @NotNull
+  public SyntheticExport seed(long seed) {
+    mySeed = seed;
+    return this;
+  }
+
+  @NotNull
+  public SyntheticExport buildRoot(@NotNull String buildRoot) {
+    myBuildRoot = buildRoot;
+    return this;
+  }
+
+  @NotNull
+  public String toJson() {
+    final StringWriter writer = new StringWriter();
+    try {
+      write(writer);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return writer.toString();
+  }
+
+  @NotNull
+  public ProjectInfo toProjectInfo() {
+    return PantsResolver.parseProjectInfoFromJSON(toJson());
+  }
+
+  public void write(@NotNull Writer output) throws IOException {
+    final Random random = new Random(mySeed);
+    final List<Set<Integer>> dependencies = createDependencies(random);
+
+    final JsonWriter writer = new JsonWriter(output);
+    writer.beginObject();
+    writer.name("version").value("1.0.13");
+
+    writer.name("libraries").beginObject();
+    for (int i = 0; i < myLibraries; i++) {
+      writer.name(getLibraryId(i)).beginObject();
+      writer.name("default").value(myBuildRoot + "/.cache/lib" + i + "-1.0.jar");
+      writer.name("sources").value(myBuildRoot + "/.cache/lib" + i + "-1.0-sources.jar");
+      writer.endObject();
+    }
+    writer.endObject();
+
+    writer.name("targets").beginObject();
+    for (int target = 0; target < myTargets; target++) {
+      writer.name(getAddress(target)).beginObject();
+      writer.name("target_type").value("SOURCE");
+      writer.name("pants_target_type").value("java_library");
+      writer.name("is_target_root").value(true);
+      writer.name("targets").beginArray();
+      for (int dependency : dependencies.get(target)) {
+        writer.value(getAddress(dependency));
+      }
+      writer.endArray();
+      writer.name("libraries").beginArray();
+      for (int i = 0; i < Math.min(myLibrariesPerTarget, myLibraries); i++) {
+        writer.value(getLibraryId(random.nextInt(myLibraries)));
+      }
+      writer.endArray();
+      writer.name("excludes").beginArray().endArray();
+      writer.name("roots").beginArray().beginObject();
+      final int rootOwner = target - getIndexInLayer(target) % mySourceRootSharing;
+      writer.name("source_root").value(myBuildRoot + "/" + getPath(rootOwner) + "/src/main/java");
+      writer.name("package_prefix").value("org.synthetic.t" + rootOwner);
+      writer.endObject().endArray();
+      writer.endObject();
+    }
+    writer.endObject();
+
+    writer.endObject();
+    writer.flush();
+  }
+
+  @NotNull
+  private List<Set<Integer>> createDependencies(@NotNull Random random) {
+    final List<Set<Integer>> dependencies = new ArrayList<>(myTargets);
+    for (int target = 0; target < myTargets; target++) {
+      final Set<Integer> targetDependencies = new LinkedHashSet<>();
+      final int layer = getLayer(target);
+      if (layer + 1 < myDepth) {
+        final int nextLayerStart = getLayerStart(layer + 1);
+        final int nextLayerSize = getLayerStart(layer + 2) - nextLayerStart;
+        for (int i = 0; i < Math.min(myFanOut, nextLayerSize); i++) {
+          targetDependencies.add(nextLayerStart + random.nextInt(nextLayerSize));
+        }
+      }
+      dependencies.add(targetDependencies);
+    }
+    // walk down the first dependencies of a target and point the last one back at it
+    for (int cycle = 0; cycle < myCycles; cycle++) {
+      final int start = random.nextInt(Math.max(1, getLayerStart(1)));
+      int last = start;
+      for (int i = 1; i < myCycleLength && !dependencies.get(last).isEmpty(); i++) {
+        last = dependencies.get(last).iterator().next();
+      }
+      if (last != start) {
+        dependencies.get(last).add(start);
+      }
+    }
+    return dependencies;
+  }
+
+  private int getLayer(int target) {
+    return (int)((long)target * myDepth / myTargets);
+  }
+
+  private int getLayerStart(int layer) {
+    return (int)(((long)layer * myTargets + myDepth - 1) / myDepth);
+  }
+
+  private int getIndexInLayer(int target) {
+    return target - getLayerStart(getLayer(target));
+  }
+
+  @NotNull
+  private String getPath(int target) {
+    return "src/layer" + getLayer(target) + "/t" + target;
+  }
+
+  @NotNull
+  private String getAddress(int target) {
+    return getPath(target) + ":t" + target;
+  }
+
+  @NotNull
+  private static String getLibraryId(int library) {
+    return "org.synthetic:lib" + library + ":1.0";
+  }
+}
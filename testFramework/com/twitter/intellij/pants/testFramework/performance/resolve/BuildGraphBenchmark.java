@@ -0,0 +1,29 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.testFramework.performance.resolve;
+
+import com.twitter.intellij.pants.service.project.PantsProjectInfoModifierExtension;
+import com.twitter.intellij.pants.service.project.model.ProjectInfo;
+import com.twitter.intellij.pants.service.project.model.graph.BuildGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.io.IOException;
+
+public class BuildGraphBenchmark extends ExportFixtureState {
+  private ProjectInfo myProjectInfo;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    loadFixture();
+    myProjectInfo = parse();
+    modify(myProjectInfo, PantsProjectInfoModifierExtension.EP_NAME.getExtensionList());
+  }
+
+  @Benchmark
+  public BuildGraph construct() {
+    return new BuildGraph(myProjectInfo.getTargets());
+  }
+}
@@ -0,0 +1,59 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.testFramework.performance.resolve;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.testFramework.TestApplicationManager;
+import com.twitter.intellij.pants.service.PantsCompileOptionsExecutor;
+import com.twitter.intellij.pants.service.project.PantsProjectInfoModifierExtension;
+import com.twitter.intellij.pants.service.project.PantsResolver;
+import com.twitter.intellij.pants.service.project.model.ProjectInfo;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A recorded {@code pants export} output, read once per trial.
+ * The fixture directory is given by the {@value #FIXTURES_DIR_PROPERTY} system property
+ * and the fixture names by {@link ResolveBenchmarks}.
+ */
+@State(Scope.Benchmark)
+public abstract class ExportFixtureState {
+  public static final String FIXTURES_DIR_PROPERTY = "pants.benchmark.fixtures";
+
+  @Param({})
+  public String fixture;
+
+  protected final PantsCompileOptionsExecutor myExecutor = PantsCompileOptionsExecutor.createMock();
+  protected String myJson;
+
+  protected void loadFixture() throws IOException {
+    // extensions look up services and other extensions, so they need a running application
+    TestApplicationManager.getInstance();
+    final String fixturesDir = System.getProperty(FIXTURES_DIR_PROPERTY);
+    if (fixturesDir == null) {
+      throw new IllegalStateException(FIXTURES_DIR_PROPERTY + " is not set");
+    }
+    myJson = FileUtil.loadFile(new File(fixturesDir, fixture));
+  }
+
+  @NotNull
+  protected ProjectInfo parse() {
+    return PantsResolver.parseProjectInfoFromJSON(myJson);
+  }
+
+  /**
+   * Applies the modifiers in extension order, the way {@link PantsResolver#addInfoTo} does.
+   */
+  protected void modify(@NotNull ProjectInfo projectInfo, @NotNull List<PantsProjectInfoModifierExtension> modifiers) {
+    for (PantsProjectInfoModifierExtension modifier : modifiers) {
+      modifier.modify(projectInfo, myExecutor, ResolveBenchmarks.LOG);
+    }
+  }
+}
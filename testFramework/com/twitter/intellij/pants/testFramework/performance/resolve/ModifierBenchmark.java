@@ -0,0 +1,60 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.testFramework.performance.resolve;
+
+import com.twitter.intellij.pants.service.project.PantsProjectInfoModifierExtension;
+import com.twitter.intellij.pants.service.project.model.ProjectInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A single modifier, run on the project info the modifiers before it have produced.
+ * Modifiers change the project info in place, so that input is rebuilt before every invocation.
+ */
+public class ModifierBenchmark extends ExportFixtureState {
+  @Param({
+    "PantsCyclicDependenciesModifier",
+    "PythonInfoModifier",
+    "PantsSourceRootCompressor",
+    "PantsEmptyTargetRemover",
+    "PantsCommonSourceRootModifier",
+    "PantsTargetNamesShortenerModifier"
+  })
+  public String modifier;
+
+  private PantsProjectInfoModifierExtension myModifier;
+  private List<PantsProjectInfoModifierExtension> myPreviousModifiers;
+  private ProjectInfo myProjectInfo;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    loadFixture();
+    final List<PantsProjectInfoModifierExtension> modifiers = PantsProjectInfoModifierExtension.EP_NAME.getExtensionList();
+    for (int i = 0; i < modifiers.size(); i++) {
+      if (modifiers.get(i).getClass().getSimpleName().equals(modifier)) {
+        myModifier = modifiers.get(i);
+        myPreviousModifiers = modifiers.subList(0, i);
+        return;
+      }
+    }
+    throw new IllegalArgumentException("Unknown modifier " + modifier);
+  }
+
+  @Setup(Level.Invocation)
+  public void prepareProjectInfo() {
+    myProjectInfo = parse();
+    modify(myProjectInfo, myPreviousModifiers);
+  }
+
+  @Benchmark
+  public ProjectInfo modify() {
+    myModifier.modify(myProjectInfo, myExecutor, ResolveBenchmarks.LOG);
+    return myProjectInfo;
+  }
+}
@@ -0,0 +1,24 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.testFramework.performance.resolve;
+
+import com.twitter.intellij.pants.service.project.model.ProjectInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+public class ProjectInfoParseBenchmark extends ExportFixtureState {
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    loadFixture();
+  }
+
+  @Benchmark
+  public ProjectInfo fromJson() {
+    return ProjectInfo.fromJson(new StringReader(myJson));
+  }
+}
@@ -0,0 +1,112 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.testFramework.performance.resolve;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.twitter.intellij.pants.testFramework.SyntheticExport;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the benchmarks of the project resolve pipeline against every {@code *.json} export in a directory,
+ * reporting throughput together with the allocation rate measured by the GC profiler.
+ *
+ * With {@code -synthetic}, exports of the given sizes are generated by {@link SyntheticExport} first.
+ *
+ * Usage: {@code [-fixtures <dir>] [-synthetic 10000,50000,100000] [-output <file>] [-include <regexp>]}
+ */
+public class ResolveBenchmarks {
+  static final Logger LOG = Logger.getInstance(ResolveBenchmarks.class);
+
+  public static void main(String[] args) throws RunnerException, IOException {
+    String fixturesDir = null;
+    String syntheticSizes = null;
+    String output = null;
+    String include = ResolveBenchmarks.class.getPackage().getName() + ".*";
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "-fixtures":
+          fixturesDir = args[i + 1];
+          break;
+        case "-synthetic":
+          syntheticSizes = args[i + 1];
+          break;
+        case "-output":
+          output = args[i + 1];
+          break;
+        case "-include":
+          include = args[i + 1];
+          break;
+        default:
+          System.err.println("Unknown option " + args[i]);
+          System.exit(1);
+      }
+    }
+    if (syntheticSizes != null) {
+      if (fixturesDir == null) {
+        fixturesDir = FileUtil.createTempDirectory("pants-synthetic-exports", null).getPath();
+      }
+      for (String size : StringUtil.split(syntheticSizes, ",")) {
+        writeSyntheticExport(new File(fixturesDir, "synthetic-" + size + ".json"), Integer.parseInt(size.trim()));
+      }
+    }
+    if (fixturesDir == null) {
+      System.err.println("-fixtures or -synthetic is required");
+      System.exit(1);
+    }
+    final File[] fixtures = new File(fixturesDir).listFiles((dir, name) -> name.endsWith(".json"));
+    if (fixtures == null || fixtures.length == 0) {
+      System.err.println("No export fixtures in " + fixturesDir);
+      System.exit(1);
+    }
+    final String[] fixtureNames = new String[fixtures.length];
+    for (int i = 0; i < fixtures.length; i++) {
+      fixtureNames[i] = fixtures[i].getName();
+    }
+
+    final ChainedOptionsBuilder options = new OptionsBuilder()
+      .include(include)
+      .param("fixture", fixtureNames)
+      .jvmArgsAppend("-D" + ExportFixtureState.FIXTURES_DIR_PROPERTY + "=" + new File(fixturesDir).getAbsolutePath())
+      .mode(Mode.Throughput)
+      .timeUnit(TimeUnit.SECONDS)
+      .warmupIterations(3)
+      .measurementIterations(5)
+      .forks(1)
+      .addProfiler(GCProfiler.class);
+    if (output != null) {
+      options.result(output).resultFormat(ResultFormatType.JSON);
+    }
+    new Runner(options.build()).run();
+    System.exit(0);
+  }
+
+  private static void writeSyntheticExport(@NotNull File file, int targets) throws IOException {
+    final SyntheticExport export = new SyntheticExport()
+      .targets(targets)
+      .fanOut(5)
+      .depth(20)
+      .cycles(targets / 1000)
+      .sourceRootSharing(2)
+      .libraries(targets / 10);
+    try (Writer writer = new BufferedWriter(new FileWriter(file))) {
+      export.write(writer);
+    }
+  }
+}
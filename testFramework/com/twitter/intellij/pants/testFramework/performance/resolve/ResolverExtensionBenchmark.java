@@ -0,0 +1,86 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.testFramework.performance.resolve;
+
+import com.intellij.openapi.externalSystem.model.DataNode;
+import com.intellij.openapi.externalSystem.model.ProjectKeys;
+import com.intellij.openapi.externalSystem.model.project.ModuleData;
+import com.intellij.openapi.externalSystem.model.project.ProjectData;
+import com.twitter.intellij.pants.service.project.PantsProjectInfoModifierExtension;
+import com.twitter.intellij.pants.service.project.PantsResolverExtension;
+import com.twitter.intellij.pants.service.project.model.ProjectInfo;
+import com.twitter.intellij.pants.service.project.model.TargetInfo;
+import com.twitter.intellij.pants.util.PantsConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A single resolver extension, run on a fresh project node holding what the extensions before it have created.
+ */
+public class ResolverExtensionBenchmark extends ExportFixtureState {
+  @Param({
+    "PantsCreateModulesExtension",
+    "PantsSourceRootsExtension",
+    "PantsModuleDependenciesExtension",
+    "PantsLibrariesExtension",
+    "PythonPexResolver",
+    "PythonRequirementsResolver",
+    "ScalaSdkResolver"
+  })
+  public String extension;
+
+  private PantsResolverExtension myExtension;
+  private List<PantsResolverExtension> myPreviousExtensions;
+  private ProjectInfo myProjectInfo;
+  private List<Map.Entry<String, TargetInfo>> mySortedTargets;
+  private DataNode<ProjectData> myProjectNode;
+  private Map<String, DataNode<ModuleData>> myModules;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    loadFixture();
+    myProjectInfo = parse();
+    modify(myProjectInfo, PantsProjectInfoModifierExtension.EP_NAME.getExtensionList());
+    mySortedTargets = myProjectInfo.getSortedTargets();
+    final List<PantsResolverExtension> extensions = PantsResolverExtension.EP_NAME.getExtensionList();
+    for (int i = 0; i < extensions.size(); i++) {
+      if (extensions.get(i).getClass().getSimpleName().equals(extension)) {
+        myExtension = extensions.get(i);
+        myPreviousExtensions = extensions.subList(0, i);
+        return;
+      }
+    }
+    throw new IllegalArgumentException("Unknown extension " + extension);
+  }
+
+  @Setup(Level.Invocation)
+  public void prepareProjectNode() {
+    final ProjectData projectData = new ProjectData(
+      PantsConstants.SYSTEM_ID, "benchmark-project", "path/to/fake/project", "path/to/fake/project/BUILD"
+    );
+    myProjectNode = new DataNode<>(ProjectKeys.PROJECT, projectData, null);
+    myModules = new HashMap<>();
+    for (PantsResolverExtension previousExtension : myPreviousExtensions) {
+      resolve(previousExtension);
+    }
+  }
+
+  @Benchmark
+  public DataNode<ProjectData> resolve() {
+    resolve(myExtension);
+    return myProjectNode;
+  }
+
+  private void resolve(PantsResolverExtension extension) {
+    extension.resolve(myProjectInfo, mySortedTargets, myExecutor, myProjectNode, myModules, Optional.empty());
+  }
+}
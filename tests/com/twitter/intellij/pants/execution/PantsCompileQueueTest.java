@@ -0,0 +1,115 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.execution;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.testFramework.LightPlatformTestCase;
+import com.twitter.intellij.pants.file.FileChangeTracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class PantsCompileQueueTest extends LightPlatformTestCase {
+  private final List<Set<String>> myInvocations = Collections.synchronizedList(new ArrayList<>());
+  private final CountDownLatch myStarted = new CountDownLatch(1);
+  private final CountDownLatch myRelease = new CountDownLatch(1);
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      myRelease.countDown();
+      FileChangeTracker.unregisterProject(getProject());
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  private PantsExecuteTaskResult compile(Set<String> targetAddresses, boolean useCleanAll) {
+    myInvocations.add(new HashSet<>(targetAddresses));
+    myStarted.countDown();
+    try {
+      myRelease.await(10, TimeUnit.SECONDS);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return new PantsExecuteTaskResult(true, Optional.of(String.join(",", new TreeSet<>(targetAddresses))));
+  }
+
+  private Future<PantsExecuteTaskResult> submit(PantsCompileQueue queue, String... targetAddresses) {
+    Set<String> targets = new HashSet<>(Arrays.asList(targetAddresses));
+    return ApplicationManager.getApplication().executeOnPooledThread(() -> queue.compile(targets, false, this::compile));
+  }
+
+  private Future<PantsExecuteTaskResult> submit(PantsCompileQueue queue, ProgressIndicator indicator, String... targetAddresses) {
+    Set<String> targets = new HashSet<>(Arrays.asList(targetAddresses));
+    return ApplicationManager.getApplication().executeOnPooledThread(
+      () -> ProgressManager.getInstance().runProcess(() -> queue.compile(targets, false, this::compile), indicator)
+    );
+  }
+
+  public void testCoveredRequestSharesTheRunningCompile() throws Exception {
+    PantsCompileQueue queue = new PantsCompileQueue(getProject());
+    Future<PantsExecuteTaskResult> first = submit(queue, "a:a", "b:b");
+    assertTrue(myStarted.await(10, TimeUnit.SECONDS));
+    Future<PantsExecuteTaskResult> covered = submit(queue, "a:a");
+    myRelease.countDown();
+
+    assertSame(first.get(10, TimeUnit.SECONDS), covered.get(10, TimeUnit.SECONDS));
+    assertEquals(1, myInvocations.size());
+  }
+
+  public void testRequestAfterChangeRunsAgain() throws Exception {
+    PantsCompileQueue queue = new PantsCompileQueue(getProject());
+    Future<PantsExecuteTaskResult> first = submit(queue, "a:a", "b:b");
+    assertTrue(myStarted.await(10, TimeUnit.SECONDS));
+    FileChangeTracker.markDirty(getProject());
+    Future<PantsExecuteTaskResult> afterChange = submit(queue, "a:a");
+    myRelease.countDown();
+
+    assertEquals(Optional.of("a:a,b:b"), first.get(10, TimeUnit.SECONDS).output);
+    assertEquals(Optional.of("a:a"), afterChange.get(10, TimeUnit.SECONDS).output);
+    assertEquals(2, myInvocations.size());
+  }
+
+  public void testWaitingRequestCanBeCancelled() throws Exception {
+    PantsCompileQueue queue = new PantsCompileQueue(getProject());
+    Future<PantsExecuteTaskResult> first = submit(queue, "a:a");
+    assertTrue(myStarted.await(10, TimeUnit.SECONDS));
+    ProgressIndicator indicator = new EmptyProgressIndicator();
+    Future<PantsExecuteTaskResult> cancelled = submit(queue, indicator, "b:b");
+    Future<PantsExecuteTaskResult> merged = submit(queue, "c:c");
+    indicator.cancel();
+
+    try {
+      cancelled.get(10, TimeUnit.SECONDS);
+      fail("The request should have been cancelled while the first compile still runs");
+    }
+    catch (ExecutionException e) {
+      assertInstanceOf(e.getCause(), ProcessCanceledException.class);
+    }
+    assertFalse(first.isDone());
+
+    // the pending compile still runs for the other request, even if the cancelled one created it
+    myRelease.countDown();
+    assertEquals(Optional.of("a:a"), first.get(10, TimeUnit.SECONDS).output);
+    assertTrue(merged.get(10, TimeUnit.SECONDS).output.orElse("").contains("c:c"));
+    assertEquals(2, myInvocations.size());
+  }
+}
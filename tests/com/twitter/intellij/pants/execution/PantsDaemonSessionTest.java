@@ -0,0 +1,69 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.execution;
+
+import com.intellij.execution.configurations.GeneralCommandLine;
+import com.intellij.execution.process.ProcessOutput;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.testFramework.LightPlatformTestCase;
+import com.twitter.intellij.pants.model.PantsOptions;
+import com.twitter.intellij.pants.util.PantsConstants;
+import com.twitter.intellij.pants.util.PantsUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+public class PantsDaemonSessionTest extends LightPlatformTestCase {
+  private File myBuildRoot;
+  private PantsDaemonSession mySession;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    myBuildRoot = FileUtil.createTempDirectory("pantsd", null);
+    PantsOptions options = new PantsOptions(PantsConstants.PANTS_OPTION_SUBPROCESSDIR + " = .pids (from HARDCODED)");
+    mySession = PantsDaemonSession.getInstance(new File(myBuildRoot, "pants").getPath(), options);
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    try {
+      FileUtil.delete(myBuildRoot);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testHealthyBeforeStarted() {
+    assertTrue(mySession.isHealthy());
+  }
+
+  public void testHealthyWhileRunning() throws IOException {
+    // "pid@host"
+    writePid(ManagementFactory.getRuntimeMXBean().getName().split("@")[0]);
+    assertTrue(mySession.isHealthy());
+  }
+
+  public void testUnhealthyWithStalePid() throws Exception {
+    // the shell has exited once its output is captured
+    ProcessOutput output = PantsUtil.getCmdOutput(new GeneralCommandLine("sh", "-c", "echo $$"), null);
+    writePid(output.getStdout().trim());
+    assertFalse(mySession.isHealthy());
+  }
+
+  public void testUnhealthyWithInvalidPid() throws IOException {
+    writePid(String.valueOf(Long.MAX_VALUE));
+    assertFalse(mySession.isHealthy());
+    writePid("not a pid");
+    assertFalse(mySession.isHealthy());
+    writePid("-1");
+    assertFalse(mySession.isHealthy());
+  }
+
+  private void writePid(String pid) throws IOException {
+    FileUtil.writeToFile(new File(myBuildRoot, ".pids/pantsd/pid"), pid);
+  }
+}
@@ -8,10 +8,16 @@ import com.intellij.openapi.project.DumbServiceImpl;
 import com.intellij.util.containers.ContainerUtil;
 import com.twitter.intellij.pants.metrics.PantsExternalMetricsListener;
 import com.twitter.intellij.pants.metrics.PantsExternalMetricsListenerManager;
+import com.twitter.intellij.pants.metrics.PantsMetricsEvent;
 import com.twitter.intellij.pants.testFramework.OSSPantsIntegrationTest;
 import junit.framework.AssertionFailedError;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.plugins.scala.testingSupport.test.scalatest.ScalaTestRunConfiguration;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 public class PantsExternalMetricsListenerExtensionTest extends OSSPantsIntegrationTest {
 
   /**
@@ -56,6 +62,13 @@ public class PantsExternalMetricsListenerExtensionTest extends OSSPantsIntegrati
     super.tearDown();
   }
 
+  /**
+   * Listeners are called on a background thread, so wait for the events logged so far.
+   */
+  private static void flushMetrics() throws Exception {
+    PantsExternalMetricsListenerManager.getInstance().flush();
+  }
+
   public void testJUnitRunner() throws Throwable {
     class TestMetricsListener extends EmptyMetricsTestListener {
       private PantsExternalMetricsListener.TestRunnerType lastRun;
@@ -76,6 +89,7 @@ public class PantsExternalMetricsListenerExtensionTest extends OSSPantsIntegrati
       "testprojects_tests_java_org_pantsbuild_testproject_annotation_annotation",
       "org.pantsbuild.testproject.annotation.AnnotationTest"
     );
+    flushMetrics();
     assertEquals(PantsExternalMetricsListener.TestRunnerType.JUNIT_RUNNER, listener.lastRun);
   }
 
@@ -105,6 +119,7 @@ public class PantsExternalMetricsListenerExtensionTest extends OSSPantsIntegrati
     catch (AssertionFailedError ignored) {
 
     }
+    flushMetrics();
     assertEquals(PantsExternalMetricsListener.TestRunnerType.SCALA_RUNNER, listener.lastRun);
   }
 
@@ -126,9 +141,30 @@ public class PantsExternalMetricsListenerExtensionTest extends OSSPantsIntegrati
 
     // Make sure the exception will not cause the main thread to fail.
     PantsExternalMetricsListenerManager.getInstance().logTestRunner(PantsExternalMetricsListener.TestRunnerType.PANTS_RUNNER);
+    flushMetrics();
     assertTrue(String.format("%s was not called.", ErrorMetricsListener.class), errorListenerExtension.called);
   }
 
+  public void testEventsAreDeliveredInOrder() throws Throwable {
+    class BatchMetricsListener extends EmptyMetricsTestListener {
+      private final List<PantsMetricsEvent> events = new ArrayList<>();
+
+      @Override
+      public void logEvents(@NotNull List<PantsMetricsEvent> batch) {
+        events.addAll(batch);
+      }
+    }
+
+    BatchMetricsListener listener = new BatchMetricsListener();
+    Extensions.getRootArea().getExtensionPoint(PantsExternalMetricsListener.EP_NAME).registerExtension(listener, myProject);
+
+    PantsExternalMetricsListenerManager.getInstance().logEvent("first");
+    PantsExternalMetricsListenerManager.getInstance().logIndexingDuration(42);
+    PantsExternalMetricsListenerManager.getInstance().logEvent("second");
+    flushMetrics();
+    assertEquals(Arrays.asList("first", 42L, "second"), ContainerUtil.map(listener.events, PantsMetricsEvent::getValue));
+  }
+
   public void testNoopMetrics() throws Throwable {
     class NoopMetricsListener extends EmptyMetricsTestListener {
 
@@ -146,10 +182,12 @@ public class PantsExternalMetricsListenerExtensionTest extends OSSPantsIntegrati
     doImport("examples/tests/scala/org/pantsbuild/example/hello/welcome");
     // The first compile has to execute.
     assertPantsCompileExecutesAndSucceeds(pantsCompileProject());
+    flushMetrics();
     assertFalse("Last compile should not be noop, it was.", listener.lastWasNoop);
 
     // Second compile without any change should be lastWasNoop.
     assertPantsCompileNoop(pantsCompileProject());
+    flushMetrics();
     assertTrue("Last compile should be noop, but was not.", listener.lastWasNoop);
   }
 
@@ -176,6 +214,7 @@ public class PantsExternalMetricsListenerExtensionTest extends OSSPantsIntegrati
       Thread.sleep(sleepMilliseconds);
       // Second compile with modified project should execute.
       assertPantsCompileExecutesAndSucceeds(pantsCompileProject());
+      flushMetrics();
       assertTrue(
         "Recorded duration between last file edit and PantsCompile invocation should be refreshed, but it is not",
         listener.duration >= sleepMilliseconds
@@ -184,6 +223,7 @@ public class PantsExternalMetricsListenerExtensionTest extends OSSPantsIntegrati
       long dataPoint = listener.duration;
       // Run compile again which should be noop, and make sure the the duration is not updated.
       assertPantsCompileNoop(pantsCompileProject());
+      flushMetrics();
       assertEquals("Noop compile should leave recorded duration unchanged, but it is not the case", dataPoint, listener.duration);
     }
   }
@@ -215,6 +255,7 @@ public class PantsExternalMetricsListenerExtensionTest extends OSSPantsIntegrati
     DumbServiceImpl.getInstance(myProject).setDumb(false);
     DumbServiceImpl.getInstance(myProject).setDumb(false);
 
+    flushMetrics();
     assertTrue(
       String.format("Indexing duration should be greater than %s, but is %s.", sleepTimeMilliSeconds, listener.duration),
       listener.duration >= sleepTimeMilliSeconds
@@ -232,6 +273,7 @@ public class PantsExternalMetricsListenerExtensionTest extends OSSPantsIntegrati
     // Unset dumb service to signify indexing has ended.
     DumbServiceImpl.getInstance(myProject).setDumb(false);
 
+    flushMetrics();
     assertTrue(
       String.format("Indexing duration should be greater than %s, but is %s.", secondSleepTimeMilliSeconds, listener.duration),
       listener.duration >= secondSleepTimeMilliSeconds
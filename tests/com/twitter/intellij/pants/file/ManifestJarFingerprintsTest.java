@@ -0,0 +1,69 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.file;
+
+import com.google.common.hash.Hashing;
+import com.intellij.openapi.util.io.FileUtil;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+public class ManifestJarFingerprintsTest extends TestCase {
+  private File myDirectory;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    myDirectory = FileUtil.createTempDirectory("manifest", null);
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    FileUtil.delete(myDirectory);
+    super.tearDown();
+  }
+
+  public void testFingerprintIsReusedUntilTheJarChanges() throws IOException {
+    Path jar = writeManifestJar("a.jar");
+    ManifestJarFingerprints.Fingerprint first = ManifestJarFingerprints.get(jar);
+    assertEquals(Hashing.md5().hashBytes(Files.readAllBytes(jar)).toString(), first.getHash());
+    assertSame(first, ManifestJarFingerprints.get(jar));
+
+    writeManifestJar("a.jar", "a.jar", "b.jar");
+    Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 1000));
+    ManifestJarFingerprints.Fingerprint second = ManifestJarFingerprints.get(jar);
+    assertNotSame(first, second);
+    assertFalse(first.getHash().equals(second.getHash()));
+  }
+
+  public void testClassPathIsRelativeToTheJar() throws IOException {
+    Path jar = writeManifestJar("manifest.jar", "a.jar", "lib/b.jar");
+    ManifestJarFingerprints.Fingerprint fingerprint = ManifestJarFingerprints.get(jar);
+    assertEquals(
+      Arrays.asList(new File(myDirectory, "a.jar").getPath(), new File(myDirectory, "lib/b.jar").getPath()),
+      ManifestJarFingerprints.getClassPath(jar, fingerprint)
+    );
+    assertSame(ManifestJarFingerprints.getClassPath(jar, fingerprint), ManifestJarFingerprints.getClassPath(jar, fingerprint));
+  }
+
+  private Path writeManifestJar(String name, String... classPath) throws IOException {
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, String.join(" ", classPath));
+    File jar = new File(myDirectory, name);
+    try (JarOutputStream output = new JarOutputStream(new FileOutputStream(jar), manifest)) {
+      output.flush();
+    }
+    return jar.toPath();
+  }
+}
@@ -4,8 +4,10 @@
 package com.twitter.intellij.pants.integration;
 
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.WriteAction;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.twitter.intellij.pants.settings.PantsSettings;
 import com.twitter.intellij.pants.testFramework.OSSPantsIntegrationTest;
 
@@ -56,6 +58,37 @@ public class NoopCompileTest extends OSSPantsIntegrationTest {
     assertPantsCompileExecutesAndSucceeds(pantsCompileProject());
   }
 
+  public void testEditFileInDependentModuleShouldNoop() throws Throwable {
+    importScalaHello();
+
+    assertPantsCompileExecutesAndSucceeds(pantsCompileModule(ScalaWelcomeProjectData.HELLO_SRC_JAVA_MODULE));
+    // The test module depends on the greet module, not the other way around.
+    modify("org.pantsbuild.example.hello.welcome.WelSpec");
+    assertPantsCompileNoop(pantsCompileModule(ScalaWelcomeProjectData.HELLO_SRC_JAVA_MODULE));
+  }
+
+  public void testEditFileInDependencyModuleShouldOp() throws Throwable {
+    importScalaHello();
+
+    assertPantsCompileExecutesAndSucceeds(pantsCompileModule(ScalaWelcomeProjectData.HELLO_SRC_SCALA_MODULE));
+    modify("org.pantsbuild.example.hello.greet.Greeting");
+    assertPantsCompileExecutesAndSucceeds(pantsCompileModule(ScalaWelcomeProjectData.HELLO_SRC_SCALA_MODULE));
+    assertPantsCompileNoop(pantsCompileModule(ScalaWelcomeProjectData.HELLO_SRC_SCALA_MODULE));
+  }
+
+  public void testCopyFileIntoDependencyModuleShouldOp() throws Throwable {
+    importScalaHello();
+
+    assertPantsCompileExecutesAndSucceeds(pantsCompileModule(ScalaWelcomeProjectData.HELLO_SRC_SCALA_MODULE));
+    // The copy lands in the greet module, while the file it is copied from is in the test module.
+    VirtualFile source = findClassAndAssert("org.pantsbuild.example.hello.welcome.WelSpec").getContainingFile().getVirtualFile();
+    VirtualFile greetDir = findClassAndAssert("org.pantsbuild.example.hello.greet.Greeting").getContainingFile().getVirtualFile().getParent();
+    WriteAction.runAndWait(() -> {
+      source.copy(this, greetDir, "a.txt");
+    });
+    assertPantsCompileExecutesAndSucceeds(pantsCompileModule(ScalaWelcomeProjectData.HELLO_SRC_SCALA_MODULE));
+  }
+
   public void testEditDocInProjectShouldOp() throws Throwable {
     // Using a Java target because it is consistent throughout Pants versions.
     doImport("examples/tests/java/org/pantsbuild/example/hello/greet");
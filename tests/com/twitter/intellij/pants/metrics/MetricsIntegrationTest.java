@@ -34,7 +34,7 @@ public class MetricsIntegrationTest extends OSSPantsIntegrationTest {
     assertNotNull(importDir);
     doImport(importDir);
     Thread.sleep(1000);
-    PantsMetrics.report();
+    PantsProjectMetrics.getInstance(myProject).report();
     String reportFilePath = PantsMetrics.getReportFilePath();
     assertNotNull(reportFilePath);
     Map<String, Integer> result = PantsUtil.gson.fromJson(new JsonReader(new FileReader(reportFilePath)), PantsUtil.TYPE_MAP_STRING_INTEGER);
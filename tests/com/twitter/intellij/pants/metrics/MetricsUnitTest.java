@@ -3,17 +3,24 @@
 
 package com.twitter.intellij.pants.metrics;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import junit.framework.TestCase;
 
-import java.util.Map;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 
 public class MetricsUnitTest extends TestCase {
+  private PantsProjectMetrics myMetrics;
+
   @Override
   public void setUp() throws Exception {
     System.setProperty(PantsMetrics.SYSTEM_PROPERTY_METRICS_ENABLE, "true");
     super.setUp();
-    PantsMetrics.initialize();
+    myMetrics = new PantsProjectMetrics(null);
   }
 
   @Override
@@ -23,43 +30,76 @@ public class MetricsUnitTest extends TestCase {
   }
 
   public void testSanity() throws InterruptedException {
-    PantsMetrics.markIndexStart();
+    myMetrics.start(PantsProjectMetrics.INDEXING);
     Thread.sleep(1000);
-    PantsMetrics.markIndexEnd();
-    Map<String, Long> result = PantsMetrics.getCurrentResult();
-    assertTrue(0 == result.get("export_second"));
-    assertTrue(0 == result.get("load_second"));
-    assertTrue(0 < result.get("indexing_second"));
+    myMetrics.stop(PantsProjectMetrics.INDEXING);
+    PantsProjectMetrics.Snapshot result = myMetrics.getSnapshot();
+    assertTrue(0 == result.getTotalSeconds(PantsProjectMetrics.EXPORT));
+    assertTrue(0 == result.getTotalSeconds(PantsProjectMetrics.LOAD));
+    assertTrue(0 < result.getTotalSeconds(PantsProjectMetrics.INDEXING));
   }
 
-  public void testMetricsEnabled() throws Exception {
-    try {
-      illegalCalls();
-      fail(String.format("%s should have been thrown.", IllegalStateException.class));
+  public void testCountersAndHistograms() {
+    myMetrics.increment(PantsProjectMetrics.COUNTER_COMPILES);
+    myMetrics.increment(PantsProjectMetrics.COUNTER_COMPILES);
+    for (long millis = 1; millis <= 100; millis++) {
+      myMetrics.recordDuration(PantsProjectMetrics.COMPILE, millis, TimeUnit.MILLISECONDS);
     }
-    catch (IllegalStateException ignored) {
+    PantsProjectMetrics.Snapshot snapshot = myMetrics.getSnapshot();
+    assertEquals(2, snapshot.getCounter(PantsProjectMetrics.COUNTER_COMPILES));
+    assertEquals(0, snapshot.getCounter(PantsProjectMetrics.COUNTER_NOOP_COMPILES));
+    DurationHistogram.Snapshot compile = snapshot.getDuration(PantsProjectMetrics.COMPILE);
+    assertNotNull(compile);
+    assertEquals(100, compile.getCount());
+    assertEquals(5050, compile.getTotalMillis());
+    assertEquals(100, compile.getMaxMillis());
+    // accurate up to a factor of two
+    assertTrue(compile.getPercentileMillis(50) >= 50 && compile.getPercentileMillis(50) < 100);
+    assertEquals(100, compile.getPercentileMillis(100));
+  }
 
-    }
+  public void testProjectsDoNotShareMetrics() {
+    PantsProjectMetrics otherMetrics = new PantsProjectMetrics(null);
+    myMetrics.recordDuration(PantsProjectMetrics.EXPORT, 2, TimeUnit.SECONDS);
+    assertEquals(2, myMetrics.getSnapshot().getTotalSeconds(PantsProjectMetrics.EXPORT));
+    assertEquals(0, otherMetrics.getSnapshot().getTotalSeconds(PantsProjectMetrics.EXPORT));
   }
 
-  public void testMetricsDisabled() throws Exception {
-    System.clearProperty(PantsMetrics.SYSTEM_PROPERTY_METRICS_ENABLE);
-    illegalCalls();
+  public void testImportTrace() throws Exception {
+    final PantsImportTrace trace = myMetrics.startImportTrace();
+    try (PantsImportTrace.Span span = trace.span("parse export", PantsImportTrace.CATEGORY_EXPORT)) {
+      span.arg("targets", 2);
+    }
+    trace.counter("data nodes", Collections.singletonMap("MODULE", 2));
+    assertSame(trace, myMetrics.getImportTrace());
+
+    final StringWriter output = new StringWriter();
+    trace.write(output);
+    final JsonArray events = new JsonParser().parse(output.toString()).getAsJsonObject().getAsJsonArray("traceEvents");
+    final JsonObject span = events.get(0).getAsJsonObject();
+    assertEquals("parse export", span.get("name").getAsString());
+    assertEquals("X", span.get("ph").getAsString());
+    assertTrue(span.has("dur"));
+    assertEquals(2, span.getAsJsonObject("args").get("targets").getAsInt());
+    final JsonObject counter = events.get(1).getAsJsonObject();
+    assertEquals("C", counter.get("ph").getAsString());
+    assertEquals(2, counter.getAsJsonObject("args").get("MODULE").getAsInt());
+    // thread name metadata
+    assertEquals("M", events.get(2).getAsJsonObject().get("ph").getAsString());
   }
 
-  private void illegalCalls() throws Exception {
-    PantsMetrics.markIndexStart();
-    PantsMetrics.markIndexStart();
-    PantsMetrics.markExportEnd();
-    PantsMetrics.markExportEnd();
-    PantsMetrics.markIndexStart();
-    PantsMetrics.markIndexStart();
-    PantsMetrics.markResolveStart();
-    PantsMetrics.markResolveStart();
-    PantsMetrics.markIndexStart();
-    PantsMetrics.markResolveEnd();
-    PantsMetrics.markResolveEnd();
-    PantsMetrics.getCurrentResult();
-    PantsMetrics.report();
+  public void testUnmatchedCalls() {
+    myMetrics.start(PantsProjectMetrics.INDEXING);
+    myMetrics.start(PantsProjectMetrics.INDEXING);
+    myMetrics.stop(PantsProjectMetrics.EXPORT);
+    myMetrics.stop(PantsProjectMetrics.EXPORT);
+    myMetrics.start(PantsProjectMetrics.LOAD);
+    myMetrics.stop(PantsProjectMetrics.LOAD);
+    myMetrics.stop(PantsProjectMetrics.LOAD);
+    PantsProjectMetrics.Snapshot snapshot = myMetrics.getSnapshot();
+    assertNull(snapshot.getDuration(PantsProjectMetrics.EXPORT));
+    assertNull(snapshot.getDuration(PantsProjectMetrics.INDEXING));
+    assertEquals(1, snapshot.getDuration(PantsProjectMetrics.LOAD).getCount());
+    myMetrics.report();
   }
 }
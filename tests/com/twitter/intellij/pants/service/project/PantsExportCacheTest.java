@@ -0,0 +1,171 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.service.project;
+
+import com.google.common.collect.Sets;
+import com.intellij.openapi.util.io.FileUtil;
+import com.twitter.intellij.pants.model.TargetAddressInfo;
+import com.twitter.intellij.pants.service.PantsCompileOptionsExecutor;
+import com.twitter.intellij.pants.service.project.model.ProjectInfo;
+import com.twitter.intellij.pants.service.project.model.TargetInfo;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class PantsExportCacheTest extends TestCase {
+
+  private static final String CACHED_EXPORT = export(
+    "\"org.example:a:1.0\": {\"default\": \"/cache/a-1.0.jar\"}, " +
+    "\"org.example:b:1.0\": {\"default\": \"/cache/b-1.0.jar\"}",
+    target("src/a:a", true, "src/a/b:b", "src/c:c"),
+    target("src/a/b:b", true, "src/d:d"),
+    target("src/a/b:gone", true),
+    target("src/c:c", false),
+    target("src/d:d", false)
+  );
+
+  // `src/a/b:` exported again after src/a/b/BUILD replaced src/d:d with src/e:e and dropped src/a/b:gone
+  private static final String UPDATE_EXPORT = export(
+    "\"org.example:c:1.0\": {\"default\": \"/cache/c-1.0.jar\"}, " +
+    "\"org.example:a:1.0\": {\"default\": \"/cache/a-1.0.jar\"}",
+    target("src/a/b:b", true, "src/e:e"),
+    target("src/e:e", false)
+  );
+
+  public void testSplice() {
+    final PantsExportCache cache = createCache("src/a::");
+    final ProjectInfo projectInfo = cache.splice(
+      new PantsExportCache.Entry(ProjectInfo.fromJson(CACHED_EXPORT), Sets.newHashSet("src/a/b")),
+      ProjectInfo.fromJson(UPDATE_EXPORT)
+    );
+
+    assertEquals(
+      Sets.newHashSet("src/a:a", "src/a/b:b", "src/c:c", "src/e:e"),
+      projectInfo.getTargets().keySet()
+    );
+    assertEquals(Sets.newHashSet("src/e:e"), projectInfo.getTarget("src/a/b:b").getTargets());
+    assertEquals(Sets.newHashSet("src/a/b:b"), projectInfo.getDependees("src/e:e"));
+    assertTrue(isTargetRoot(projectInfo.getTarget("src/a/b:b")));
+    assertFalse(isTargetRoot(projectInfo.getTarget("src/e:e")));
+    assertEquals(
+      Arrays.asList("org.example:a:1.0", "org.example:b:1.0", "org.example:c:1.0"),
+      new ArrayList<>(projectInfo.getLibraries().keySet())
+    );
+  }
+
+  public void testSpliceWithoutUpdate() {
+    final PantsExportCache cache = createCache("src/a::");
+    final ProjectInfo projectInfo = cache.splice(
+      new PantsExportCache.Entry(ProjectInfo.fromJson(CACHED_EXPORT), Sets.newHashSet("src/a/b")),
+      null
+    );
+
+    // src/d:d was only depended on by the removed src/a/b:b
+    assertEquals(Sets.newHashSet("src/a:a", "src/c:c"), projectInfo.getTargets().keySet());
+    assertEquals(
+      Arrays.asList("org.example:a:1.0", "org.example:b:1.0"),
+      new ArrayList<>(projectInfo.getLibraries().keySet())
+    );
+  }
+
+  public void testSpliceKeepsTargetsWithoutTargetRoots() {
+    final PantsExportCache cache = createCache("src/other:");
+    final ProjectInfo projectInfo = cache.splice(
+      new PantsExportCache.Entry(ProjectInfo.fromJson(export("", target("src/a:a", false, "src/b:b"))), Sets.newHashSet("src/b")),
+      ProjectInfo.fromJson(export("", target("src/b:b", true), target("src/c:c", false)))
+    );
+
+    assertEquals(Sets.newHashSet("src/a:a", "src/b:b", "src/c:c"), projectInfo.getTargets().keySet());
+    assertFalse(isTargetRoot(projectInfo.getTarget("src/b:b")));
+  }
+
+  public void testRecursiveSpecCoversSubdirectories() {
+    assertCoveredBySpec("src/a::", "src/a:a", true);
+    assertCoveredBySpec("src/a::", "src/a/b/c:c", true);
+    assertCoveredBySpec("src/a/::", "src/a/b:b", true);
+    assertCoveredBySpec("src/a::", "src/ab:ab", false);
+    assertCoveredBySpec("src/a::", "src:src", false);
+    assertCoveredBySpec("::", "src/a:a", true);
+    assertCoveredBySpec("//src/a::", "//src/a/b:b", true);
+  }
+
+  public void testSiblingSpecCoversDirectoryOnly() {
+    assertCoveredBySpec("src/a:", "src/a:a", true);
+    assertCoveredBySpec("src/a:", "src/a:other", true);
+    assertCoveredBySpec("src/a/:", "src/a:a", true);
+    assertCoveredBySpec("src/a:", "src/a/b:b", false);
+    assertCoveredBySpec("//src/a:", "src/a:a", true);
+  }
+
+  public void testAddressSpecCoversTargetOnly() {
+    assertCoveredBySpec("src/a:x", "src/a:x", true);
+    assertCoveredBySpec("src/a:x", "src/a:y", false);
+    assertCoveredBySpec("src/a:x", "src/a/b:x", false);
+    assertCoveredBySpec("//src/a:x", "src/a:x", true);
+    assertCoveredBySpec("src/a:x", "//src/a:x", true);
+  }
+
+  public void testDirectorySpecCoversTargetNamedAfterIt() {
+    assertCoveredBySpec("src/a", "src/a:a", true);
+    assertCoveredBySpec("src/a/", "src/a:a", true);
+    assertCoveredBySpec("src/a", "src/a:other", false);
+    assertCoveredBySpec("src/a", "src/a/a:a", false);
+  }
+
+  public void testSpecsToReexportSkipDirectoriesWithoutBuildFiles() throws IOException {
+    final File buildRoot = FileUtil.createTempDirectory("export-cache", null);
+    try {
+      FileUtil.writeToFile(new File(buildRoot, "src/a/BUILD"), "java_library()");
+      FileUtil.writeToFile(new File(buildRoot, "src/b/Main.java"), "class Main {}");
+      final PantsExportCache cache =
+        new PantsExportCache(PantsCompileOptionsExecutor.createMock(buildRoot, Collections.singletonList("src::")));
+      assertEquals(
+        Collections.singletonList("src/a:"),
+        cache.getSpecsToReexport(Arrays.asList("src/a", "src/b", "src/gone"))
+      );
+    }
+    finally {
+      FileUtil.delete(buildRoot);
+    }
+  }
+
+  private static void assertCoveredBySpec(String spec, String address, boolean expected) {
+    final ProjectInfo projectInfo = createCache(spec).splice(
+      new PantsExportCache.Entry(ProjectInfo.fromJson(export("")), Collections.emptySet()),
+      ProjectInfo.fromJson(export("", target(address, !expected)))
+    );
+    assertEquals(spec + " covering " + address, expected, isTargetRoot(projectInfo.getTarget(address)));
+  }
+
+  private static PantsExportCache createCache(String spec) {
+    return new PantsExportCache(PantsCompileOptionsExecutor.createMock(new File("/"), Collections.singletonList(spec)));
+  }
+
+  private static boolean isTargetRoot(TargetInfo info) {
+    return info.getAddressInfos().stream().anyMatch(TargetAddressInfo::isTargetRoot);
+  }
+
+  private static String target(String address, boolean isTargetRoot, String... dependencies) {
+    final String targets = Arrays.stream(dependencies).map(d -> "\"" + d + "\"").collect(Collectors.joining(", "));
+    return "\"" + address + "\": {" +
+           "\"target_type\": \"SOURCE\", " +
+           "\"pants_target_type\": \"java_library\", " +
+           "\"is_target_root\": " + isTargetRoot + ", " +
+           "\"targets\": [" + targets + "], " +
+           "\"roots\": []}";
+  }
+
+  private static String export(String libraries, String... targets) {
+    final List<String> targetList = Arrays.asList(targets);
+    return "{\"version\": \"1.0.13\", " +
+           "\"libraries\": {" + libraries + "}, " +
+           "\"targets\": {" + String.join(", ", targetList) + "}}";
+  }
+}
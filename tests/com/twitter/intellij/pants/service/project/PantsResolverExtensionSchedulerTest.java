@@ -0,0 +1,149 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.service.project;
+
+import com.google.common.collect.Sets;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.externalSystem.model.DataNode;
+import com.intellij.openapi.externalSystem.model.Key;
+import com.intellij.openapi.externalSystem.model.ProjectKeys;
+import com.intellij.openapi.externalSystem.model.project.ModuleData;
+import com.intellij.openapi.externalSystem.model.project.ProjectData;
+import com.intellij.testFramework.LightPlatformTestCase;
+import com.twitter.intellij.pants.service.PantsCompileOptionsExecutor;
+import com.twitter.intellij.pants.service.project.model.ProjectInfo;
+import com.twitter.intellij.pants.service.project.model.graph.BuildGraph;
+import com.twitter.intellij.pants.service.project.resolver.PantsCreateModulesExtension;
+import com.twitter.intellij.pants.service.project.resolver.PantsLibrariesExtension;
+import com.twitter.intellij.pants.service.project.resolver.PantsModuleDependenciesExtension;
+import com.twitter.intellij.pants.service.project.resolver.PantsSourceRootsExtension;
+import com.twitter.intellij.pants.service.scala.ScalaSdkResolver;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class PantsResolverExtensionSchedulerTest extends LightPlatformTestCase {
+
+  public void testIndependentExtensionsOnlyWaitForModules() {
+    final PantsResolverExtensionScheduler scheduler = new PantsResolverExtensionScheduler(Arrays.asList(
+      new PantsCreateModulesExtension(),
+      new PantsSourceRootsExtension(),
+      new PantsModuleDependenciesExtension(),
+      new PantsLibrariesExtension(),
+      new ScalaSdkResolver()
+    ));
+    assertTrue(scheduler.getPredecessors(0).isEmpty());
+    assertEquals(Sets.newHashSet(0), scheduler.getPredecessors(1));
+    assertEquals(Sets.newHashSet(0), scheduler.getPredecessors(2));
+    assertEquals(Sets.newHashSet(0), scheduler.getPredecessors(3));
+    // both create project libraries
+    assertEquals(Sets.newHashSet(0, 3), scheduler.getPredecessors(4));
+  }
+
+  public void testUndeclaredExtensionRunsAlone() {
+    final PantsResolverExtensionScheduler scheduler = new PantsResolverExtensionScheduler(Arrays.asList(
+      new PantsCreateModulesExtension(),
+      new PantsSourceRootsExtension(),
+      new UndeclaredExtension(),
+      new PantsLibrariesExtension()
+    ));
+    assertEquals(Sets.newHashSet(0, 1), scheduler.getPredecessors(2));
+    assertEquals(Sets.newHashSet(0, 2), scheduler.getPredecessors(3));
+  }
+
+  public void testIndependentExtensionsRunConcurrentlyOffDispatchThread() throws Exception {
+    final List<String> events = Collections.synchronizedList(new ArrayList<>());
+    // both readers have to be running at the same time to get past it
+    final CountDownLatch readersStarted = new CountDownLatch(2);
+    final PantsResolverExtensionScheduler scheduler = new PantsResolverExtensionScheduler(Arrays.asList(
+      new RecordingExtension("modules", Collections.emptyList(), Arrays.asList(ProjectKeys.MODULE), events, null),
+      new RecordingExtension("roots", Arrays.asList(ProjectKeys.MODULE), Arrays.asList(ProjectKeys.CONTENT_ROOT), events, readersStarted),
+      new RecordingExtension("libraries", Arrays.asList(ProjectKeys.MODULE), Arrays.asList(ProjectKeys.LIBRARY), events, readersStarted)
+    ));
+    final List<Boolean> onDispatchThread = Collections.synchronizedList(new ArrayList<>());
+    ApplicationManager.getApplication().executeOnPooledThread(() -> scheduler.run(extension -> {
+      onDispatchThread.add(ApplicationManager.getApplication().isDispatchThread());
+      extension.resolve(null, null, null, Collections.emptyMap(), Optional.empty());
+    })).get(10, TimeUnit.SECONDS);
+
+    assertEquals(Arrays.asList(false, false, false), onDispatchThread);
+    assertEquals(6, events.size());
+    assertEquals(Arrays.asList("start modules", "end modules"), events.subList(0, 2));
+    assertTrue(events.indexOf("start roots") < events.indexOf("end libraries"));
+    assertTrue(events.indexOf("start libraries") < events.indexOf("end roots"));
+  }
+
+  private static class RecordingExtension implements PantsResolverExtension {
+    private final String myName;
+    private final Collection<Key<?>> myReadKeys;
+    private final Collection<Key<?>> myWrittenKeys;
+    private final List<String> myEvents;
+    private final CountDownLatch myStarted;
+
+    private RecordingExtension(
+      String name,
+      Collection<Key<?>> readKeys,
+      Collection<Key<?>> writtenKeys,
+      List<String> events,
+      CountDownLatch started
+    ) {
+      myName = name;
+      myReadKeys = readKeys;
+      myWrittenKeys = writtenKeys;
+      myEvents = events;
+      myStarted = started;
+    }
+
+    @Override
+    public Collection<Key<?>> getReadKeys() {
+      return myReadKeys;
+    }
+
+    @Override
+    public Collection<Key<?>> getWrittenKeys() {
+      return myWrittenKeys;
+    }
+
+    @Override
+    public void resolve(
+      ProjectInfo projectInfo,
+      PantsCompileOptionsExecutor executor,
+      DataNode<ProjectData> projectDataNode,
+      Map<String, DataNode<ModuleData>> modules,
+      Optional<BuildGraph> buildGraph
+    ) {
+      myEvents.add("start " + myName);
+      if (myStarted != null) {
+        myStarted.countDown();
+        try {
+          assertTrue(myStarted.await(5, TimeUnit.SECONDS));
+        }
+        catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      myEvents.add("end " + myName);
+    }
+  }
+
+  private static class UndeclaredExtension implements PantsResolverExtension {
+    @Override
+    public void resolve(
+      @NotNull ProjectInfo projectInfo,
+      @NotNull PantsCompileOptionsExecutor executor,
+      @NotNull DataNode<ProjectData> projectDataNode,
+      @NotNull Map<String, DataNode<ModuleData>> modules,
+      @NotNull Optional<BuildGraph> buildGraph
+    ) {
+    }
+  }
+}
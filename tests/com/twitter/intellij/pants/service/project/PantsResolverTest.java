@@ -5,7 +5,18 @@ package com.twitter.intellij.pants.service.project;
 
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.editor.EditorFactory;
+import com.intellij.openapi.externalSystem.model.DataNode;
+import com.intellij.openapi.externalSystem.model.ProjectKeys;
+import com.intellij.openapi.externalSystem.model.project.ModuleData;
+import com.intellij.openapi.externalSystem.model.project.ProjectData;
+import com.intellij.openapi.externalSystem.util.ExternalSystemApiUtil;
+import com.intellij.util.containers.ContainerUtil;
 import com.twitter.intellij.pants.PantsException;
+import com.twitter.intellij.pants.service.project.model.ProjectInfo;
+import com.twitter.intellij.pants.testFramework.SyntheticExport;
+import com.twitter.intellij.pants.util.PantsUtil;
+
+import java.util.Collection;
 
 public class PantsResolverTest extends PantsResolverTestBase {
   public void testOneCommonRootOwnedBySingleTargetOneNot() {
@@ -155,6 +166,24 @@ public class PantsResolverTest extends PantsResolverTestBase {
     assertSourceRoot("a_java_and_scala", "src/scala/foo/baz");
   }
 
+  public void testTransitiveCyclic() {
+    addInfo("a:java").
+      withRoot("src/java/foo", "com.foo").
+      withDependency("a:scala");
+    addInfo("a:scala").
+      withRoot("src/scala/foo", "com.foo").
+      withDependency("a:kotlin");
+    addInfo("a:kotlin").
+      withRoot("src/kotlin/foo", "com.foo").
+      withDependency("a:java");
+
+    assertModulesCreated("a_java_and_kotlin_and_scala");
+
+    assertSourceRoot("a_java_and_kotlin_and_scala", "src/java/foo");
+    assertSourceRoot("a_java_and_kotlin_and_scala", "src/scala/foo");
+    assertSourceRoot("a_java_and_kotlin_and_scala", "src/kotlin/foo");
+  }
+
   public void testSelfCyclicDependencyException() {
     addInfo("a:java").
       withRoot("src/java/foo/bar", "com.foo.bar").
@@ -171,4 +200,29 @@ public class PantsResolverTest extends PantsResolverTestBase {
       }
     }
   }
+
+  public void testSyntheticExport() {
+    final int targets = 300;
+    final int cycleLength = 3;
+    // with a single dependency per target, the cycle goes through exactly cycleLength targets of the first layers
+    final ProjectInfo projectInfo =
+      new SyntheticExport().targets(targets).depth(5).fanOut(1).cycles(1, cycleLength).toProjectInfo();
+    // the first target of the fourth layer, which depends on one of the fifth
+    final String target = "src/layer3/t180:t180";
+    final String dependency = projectInfo.getTarget(target).getTargets().iterator().next();
+
+    final DataNode<ProjectData> projectNode = createProjectNode(projectInfo);
+    final Collection<DataNode<ModuleData>> modules = ExternalSystemApiUtil.findAll(projectNode, ProjectKeys.MODULE);
+    // the targets of the cycle end up in one module
+    assertEquals(targets - cycleLength + 1, modules.size());
+    final DataNode<ModuleData> module = ContainerUtil.find(
+      modules,
+      node -> PantsUtil.getCanonicalModuleName(target).equals(node.getData().getExternalName())
+    );
+    assertNotNull(module);
+    assertTrue(ContainerUtil.exists(
+      ExternalSystemApiUtil.findAll(module, ProjectKeys.MODULE_DEPENDENCY),
+      node -> PantsUtil.getCanonicalModuleName(dependency).equals(node.getData().getExternalName())
+    ));
+  }
 }
@@ -68,8 +68,12 @@ abstract class PantsResolverTestBase extends PantsCodeInsightFixtureTestCase {
   }
 
   protected DataNode<ProjectData> createProjectNode() {
+    return createProjectNode(getProjectInfo());
+  }
+
+  protected DataNode<ProjectData> createProjectNode(@NotNull ProjectInfo projectInfo) {
     final PantsResolver dependenciesResolver = new PantsResolver(PantsCompileOptionsExecutor.createMock());
-    dependenciesResolver.setProjectInfo(getProjectInfo());
+    dependenciesResolver.setProjectInfo(projectInfo);
     final ProjectData projectData = new ProjectData(
       PantsConstants.SYSTEM_ID, "test-project", "path/to/fake/project", "path/to/fake/project/BUILD"
     );
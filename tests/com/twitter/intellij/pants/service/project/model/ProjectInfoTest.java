@@ -0,0 +1,166 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.service.project.model;
+
+import com.google.common.collect.Sets;
+import com.twitter.intellij.pants.model.TargetAddressInfo;
+import com.twitter.intellij.pants.service.project.PantsResolver;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class ProjectInfoTest extends TestCase {
+
+  private static final String EXPORT =
+    "{\n" +
+    "  \"version\": \"1.0.13\",\n" +
+    "  \"libraries\": {\n" +
+    "    \"org.example:lib:1.0\": {\"default\": \"/cache/lib-1.0.jar\", \"sources\": \"/cache/lib-1.0-sources.jar\"}\n" +
+    "  },\n" +
+    "  \"targets\": {\n" +
+    "    \"src/a:a\": {\n" +
+    "      \"target_type\": \"SOURCE\",\n" +
+    "      \"pants_target_type\": \"java_library\",\n" +
+    "      \"is_target_root\": true,\n" +
+    "      \"targets\": [\"src/b:b\"],\n" +
+    "      \"libraries\": [\"org.example:lib:1.0\"],\n" +
+    "      \"excludes\": [],\n" +
+    "      \"roots\": [{\"source_root\": \"/root/src/a\", \"package_prefix\": \"a\"}]\n" +
+    "    },\n" +
+    "    \"src/b:b\": {\n" +
+    "      \"target_type\": \"SOURCE\",\n" +
+    "      \"pants_target_type\": \"java_library\",\n" +
+    "      \"roots\": []\n" +
+    "    }\n" +
+    "  }\n" +
+    "}";
+
+  public void testFromJson() {
+    assertExport(ProjectInfo.fromJson(new StringReader(EXPORT)));
+  }
+
+  public void testParseSkipsLeadingOutput() throws Exception {
+    final String output = "Running export...\nDone.\n" + EXPORT;
+    assertExport(PantsResolver.parseProjectInfoFromJSON(new StringReader(output)));
+  }
+
+  public void testParseEmptyOutput() throws Exception {
+    assertNull(PantsResolver.parseProjectInfoFromJSON(new StringReader("no json here\n")));
+  }
+
+  public void testAddressesAreInterned() {
+    final ProjectInfo info = ProjectInfo.fromJson(new StringReader(EXPORT));
+    final String dependency = info.getTarget("src/a:a").getTargets().iterator().next();
+    final String key = info.getTargets().keySet().stream().filter(dependency::equals).findFirst().get();
+    assertSame(key, dependency);
+    assertSame(
+      info.getLibraries().keySet().iterator().next(),
+      info.getTarget("src/a:a").getLibraries().iterator().next()
+    );
+    assertSame(key, info.getTarget("src/b:b").getAddressInfos().iterator().next().getTargetAddress());
+  }
+
+  public void testSerializerRoundTrip() throws Exception {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ProjectInfoSerializer.write(ProjectInfo.fromJson(new StringReader(EXPORT)), new DataOutputStream(bytes));
+    final ProjectInfo restored =
+      ProjectInfoSerializer.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertExport(restored);
+    assertSame(
+      restored.getTargets().keySet().stream().filter("src/b:b"::equals).findFirst().get(),
+      restored.getTarget("src/a:a").getTargets().iterator().next()
+    );
+  }
+
+  public void testTargetInfoWrittenInExportFormat() throws Exception {
+    final TargetInfoTypeAdapter adapter = new TargetInfoTypeAdapter(new HashMap<>());
+    final TargetInfo a = ProjectInfo.fromJson(new StringReader(EXPORT)).getTarget("src/a:a");
+    final TargetInfo restored = adapter.fromJson(adapter.toJson(a));
+    assertEquals(a.getTargets(), restored.getTargets());
+    assertEquals(a.getLibraries(), restored.getLibraries());
+    assertEquals(a.getExcludes(), restored.getExcludes());
+    assertEquals(a.getRoots(), restored.getRoots());
+    final TargetAddressInfo addressInfo = restored.getAddressInfos().iterator().next();
+    assertEquals("java_library", addressInfo.getInternalPantsTargetType());
+    assertTrue(addressInfo.isTargetRoot());
+    assertEquals("null", adapter.toJson(null));
+  }
+
+  public void testDependeesFollowRenamesAndRemovals() {
+    final ProjectInfo info = ProjectInfo.fromJson(new StringReader(EXPORT));
+    assertEquals(Sets.newHashSet("src/a:a"), info.getDependees("src/b:b"));
+
+    info.renameTarget("src/a:a", "a");
+    assertEquals(Sets.newHashSet("a"), info.getDependees("src/b:b"));
+
+    info.renameTarget("src/b:b", "b");
+    assertEquals(Sets.newHashSet("b"), info.getTarget("a").getTargets());
+    assertEquals(Sets.newHashSet("a"), info.getDependees("b"));
+
+    info.removeTarget("b");
+    assertTrue(info.getTarget("a").getTargets().isEmpty());
+    assertTrue(info.getDependees("b").isEmpty());
+  }
+
+  public void testSortedTargetsInNaturalOrder() {
+    final ProjectInfo info = new ProjectInfo();
+    final Map<String, TargetInfo> targets = new HashMap<>();
+    for (String name : Arrays.asList("src:t10", "src:t9", "src:T1", "lib:t01")) {
+      targets.put(name, new TargetInfo());
+    }
+    info.setTargets(targets);
+    assertEquals(Arrays.asList("lib:t01", "src:T1", "src:t9", "src:t10"), getSortedNames(info));
+
+    info.addTarget("src:t2", new TargetInfo());
+    info.removeTarget("src:t9");
+    assertEquals(Arrays.asList("lib:t01", "src:T1", "src:t2", "src:t10"), getSortedNames(info));
+
+    // same order as StringUtil.naturalCompare, which compares '1' with '/' here
+    info.addTarget("src/foo1:x", new TargetInfo());
+    info.addTarget("src/foo/bar:x", new TargetInfo());
+    final List<String> names = getSortedNames(info);
+    assertTrue(names.indexOf("src/foo/bar:x") < names.indexOf("src/foo1:x"));
+  }
+
+  public void testLibraryFallsBackToOtherVersion() {
+    final ProjectInfo info = ProjectInfo.fromJson(new StringReader(EXPORT));
+    assertSame(info.getLibraries().get("org.example:lib:1.0"), info.getLibraries("org.example:lib:2.0"));
+    assertNull(info.getLibraries("org.example:other:1.0"));
+    assertNull(info.getLibraries("org.example"));
+  }
+
+  private static List<String> getSortedNames(ProjectInfo info) {
+    return info.getSortedTargets().stream().map(Map.Entry::getKey).collect(Collectors.toList());
+  }
+
+  private static void assertExport(ProjectInfo info) {
+    assertNotNull(info);
+    assertEquals("1.0.13", info.getVersion());
+    assertEquals("/cache/lib-1.0.jar", info.getLibraries().get("org.example:lib:1.0").getDefault());
+
+    final TargetInfo a = info.getTarget("src/a:a");
+    assertNotNull(a);
+    assertEquals(Sets.newHashSet("src/b:b"), a.getTargets());
+    assertEquals(Sets.newHashSet("org.example:lib:1.0"), a.getLibraries());
+    assertEquals(Sets.newHashSet(new ContentRoot("/root/src/a", "a")), a.getRoots());
+    final TargetAddressInfo addressInfo = a.getAddressInfos().iterator().next();
+    assertEquals("src/a:a", addressInfo.getTargetAddress());
+    assertEquals("java_library", addressInfo.getInternalPantsTargetType());
+    assertTrue(addressInfo.isTargetRoot());
+
+    final TargetInfo b = info.getTarget("src/b:b");
+    assertNotNull(b);
+    assertTrue(b.getTargets().isEmpty());
+    assertTrue(b.getRoots().isEmpty());
+  }
+}
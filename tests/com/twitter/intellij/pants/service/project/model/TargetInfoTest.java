@@ -4,6 +4,7 @@
 package com.twitter.intellij.pants.service.project.model;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Sets;
 import com.twitter.intellij.pants.model.PantsSourceType;
 import com.twitter.intellij.pants.model.TargetAddressInfo;
 import junit.framework.TestCase;
@@ -44,6 +45,25 @@ public class TargetInfoTest extends TestCase {
     assertEquals(PantsSourceType.SOURCE, info.getSourcesType());
   }
 
+  public void testUnionBuilder() {
+    TargetInfo a = createTargetInfoWithTargetAddressInfo("source");
+    a.addDependency("x");
+    a.setRoots(Sets.newHashSet(new ContentRoot("/src/a", "a")));
+    TargetInfo b = createTargetInfoWithTargetAddressInfo("test");
+    b.addDependency("y");
+    b.setLibraries(Sets.newHashSet("lib"));
+    TargetInfo c = createTargetInfoWithTargetAddressInfo("resource");
+    c.addDependency("x");
+
+    TargetInfo union = new TargetInfo.UnionBuilder().add(a).add(b).add(c).build();
+    assertEquals(3, union.getAddressInfos().size());
+    assertEquals(Sets.newHashSet("x", "y"), union.getTargets());
+    assertEquals(Sets.newHashSet("lib"), union.getLibraries());
+    assertEquals(Sets.newHashSet(new ContentRoot("/src/a", "a")), union.getRoots());
+    // the inputs are left alone
+    assertEquals(Sets.newHashSet("x"), a.getTargets());
+  }
+
   @VisibleForTesting
   public static TargetInfo createTargetInfoWithTargetAddressInfo(String... types) {
     Set<TargetAddressInfo> targetAddressInfoSet = Arrays.stream(types).map(s -> {
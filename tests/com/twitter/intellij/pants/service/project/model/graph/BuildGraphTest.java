@@ -62,6 +62,19 @@ public class BuildGraphTest extends TestCase {
     );
   }
 
+  public void testLongChain() throws Exception {
+    // t0 (root) -> t1 -> ... -> t4999
+    final int chainLength = 5000;
+    injectTargetInfo(targets, "t0", "source", IS_TARGET_ROOT, Optional.empty());
+    for (int i = 1; i < chainLength; i++) {
+      injectTargetInfo(targets, "t" + i, "source", !IS_TARGET_ROOT, Optional.of("t" + (i - 1)));
+    }
+    BuildGraph graph = new BuildGraph(targets);
+    assertEquals(chainLength - 1, graph.getMaxDepth());
+    assertEquals(11, graph.getNodesUpToLevel(10).size());
+    assertEquals(chainLength, graph.getNodesUpToLevel(chainLength).size());
+  }
+
   private Set<String> getAddressesByLevel(BuildGraph graph, int level) {
     return graph.getNodesUpToLevel(level).stream().map(BuildGraphNode::getAddress).collect(Collectors.toSet());
   }
@@ -104,6 +117,22 @@ public class BuildGraphTest extends TestCase {
     }
   }
 
+  public void testOrphanedNodesReported() throws Exception {
+    injectTargetInfo(targets, "a", "source", IS_TARGET_ROOT, Optional.empty());
+    injectTargetInfo(targets, "b", "source", !IS_TARGET_ROOT, Optional.of("a"));
+    injectTargetInfo(targets, "c", "source", !IS_TARGET_ROOT, Optional.empty());
+    BuildGraph graph = new BuildGraph(targets);
+    assertEquals(
+      Sets.newHashSet("c"),
+      graph.getOrphanedNodes().stream().map(BuildGraphNode::getAddress).collect(Collectors.toSet())
+    );
+    // orphans never make it into any level
+    assertEquals(
+      Sets.newHashSet("a", "b"),
+      getAddressesByLevel(graph, 5)
+    );
+  }
+
   public void testTargetAliasExpansion1() {
     // a -> b
     injectTargetInfoWithInternalPantsTargetType(targets, "a", "source", "target", IS_TARGET_ROOT, Optional.empty());
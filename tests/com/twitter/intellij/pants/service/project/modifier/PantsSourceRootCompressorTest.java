@@ -31,4 +31,15 @@ public class PantsSourceRootCompressorTest extends TestCase {
       ))
     );
   }
+
+  public void testFindAncestorsWithSharedNamePrefix() {
+    assertEquals(
+      Sets.newHashSet(new File("/src/a/b"), new File("/src/a/bc/d")),
+      PantsSourceRootCompressor.findAncestors(Sets.newHashSet(
+        new File("/src/a/b"),
+        new File("/src/a/b/x"),
+        new File("/src/a/bc/d")
+      ))
+    );
+  }
 }
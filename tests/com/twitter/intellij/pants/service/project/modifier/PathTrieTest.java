@@ -0,0 +1,37 @@
+// Copyright 2020 Pants project contributors (see CONTRIBUTORS.md).
+// Licensed under the Apache License, Version 2.0 (see LICENSE).
+
+package com.twitter.intellij.pants.service.project.modifier;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+
+public class PathTrieTest extends TestCase {
+  public void testHasAncestor() {
+    final PathTrie<String> trie = new PathTrie<>();
+    trie.add(new File("/src/a"), "x");
+    assertTrue(trie.hasAncestor(new File("/src/a/b"), "x"));
+    assertTrue(trie.hasAncestor(new File("/src/a/b/c"), "x"));
+    assertFalse(trie.hasAncestor(new File("/src/a"), "x"));
+    assertFalse(trie.hasAncestor(new File("/src/ab"), "x"));
+    assertFalse(trie.hasAncestor(new File("/src"), "x"));
+  }
+
+  public void testAncestorsAreKeptPerOwner() {
+    final PathTrie<String> trie = new PathTrie<>();
+    trie.add(new File("/src/a"), "x");
+    trie.add(new File("/src/a/b"), "y");
+    assertFalse(trie.hasAncestor(new File("/src/a/b/c"), "z"));
+    assertTrue(trie.hasAncestor(new File("/src/a/b/c"), "y"));
+    assertFalse(trie.hasAncestor(new File("/src/a/b"), "y"));
+    assertTrue(trie.hasAncestor(new File("/src/a/b"), "x"));
+  }
+
+  public void testRelativePaths() {
+    final PathTrie<String> trie = new PathTrie<>();
+    trie.add(new File("a/b"), "x");
+    assertTrue(trie.hasAncestor(new File("a/b/c"), "x"));
+    assertFalse(trie.hasAncestor(new File("/a/b/c"), "x"));
+  }
+}